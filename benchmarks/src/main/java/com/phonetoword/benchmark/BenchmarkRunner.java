@@ -0,0 +1,21 @@
+package com.phonetoword.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that every result comes with its allocation rate. Accepts the
+ * usual JMH command line options, e.g. a regular expression of the benchmarks to run or <code>-l</code> to list them.
+ */
+public final class BenchmarkRunner {
+
+    private static final String[] PROFILER = {"-prof", "gc"};
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        final String[] withProfiler = Arrays.copyOf(PROFILER, PROFILER.length + args.length);
+        System.arraycopy(args, 0, withProfiler, PROFILER.length, args.length);
+        org.openjdk.jmh.Main.main(withProfiler);
+    }
+
+}
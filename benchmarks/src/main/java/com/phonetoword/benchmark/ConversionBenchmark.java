@@ -0,0 +1,68 @@
+package com.phonetoword.benchmark;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NumberToWordConverter#process} over batches of generated numbers of each {@link Datasets.Kind}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    /** Name of a {@link Datasets.Kind}. */
+    @Param({"SHORT", "TYPICAL", "ADVERSARIAL", "ZEROS_AND_ONES"})
+    public String kind;
+
+    private NumberToWordConverter converter;
+    private List<String> numbers;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = Datasets.defaultDictionary()) {
+            converter = new NumberToWordConverter(DictionaryReader.load(in));
+        }
+        numbers = Datasets.numbers(Datasets.Kind.valueOf(kind), BATCH_SIZE);
+    }
+
+    /**
+     * The whole batch, collected into the map that <code>process</code> returns.
+     */
+    @Benchmark
+    public Map<String, List<String>> process() {
+        return converter.process(numbers.stream());
+    }
+
+    /**
+     * The whole batch, streamed through a sink without keeping any of the words.
+     */
+    @Benchmark
+    public void processStreaming(Blackhole blackhole) {
+        converter.process(numbers.stream(), (number, words) -> words.forEach(blackhole::consume));
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.phonetoword.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Inputs shared by the benchmarks. Everything is either bundled with the converter or generated from a fixed seed, so
+ * the benchmarks run offline and every run sees the same data.
+ */
+final class Datasets {
+
+    static final String DEFAULT_DICTIONARY = "data/default_dictionary.txt";
+
+    private static final long SEED = 1800;
+
+    /**
+     * Kinds of numbers to convert.
+     */
+    enum Kind {
+        /** Seven digit local numbers. */
+        SHORT,
+        /** Ten digit numbers formatted the way people write them, e.g. (225) 563-4466. */
+        TYPICAL,
+        /** Sixteen digit runs of 2-9, every one of which can start a word. */
+        ADVERSARIAL,
+        /** Fourteen digit numbers where most digits are 0 or 1, which never match a word. */
+        ZEROS_AND_ONES
+    }
+
+    private Datasets() {}
+
+    static InputStream defaultDictionary() {
+        return Datasets.class.getClassLoader().getResourceAsStream(DEFAULT_DICTIONARY);
+    }
+
+    static List<String> defaultDictionaryLines() throws IOException {
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(defaultDictionary(), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    static List<String> numbers(Kind kind, int count) {
+        final Random random = new Random(SEED);
+        final List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(number(kind, random));
+        }
+        return numbers;
+    }
+
+    private static String number(Kind kind, Random random) {
+        switch (kind) {
+            case SHORT:
+                return digits(random, 7, 2);
+            case TYPICAL:
+                final String digits = digits(random, 10, 0);
+                return "(" + digits.substring(0, 3) + ") " + digits.substring(3, 6) + "-" + digits.substring(6);
+            case ADVERSARIAL:
+                return digits(random, 16, 2);
+            case ZEROS_AND_ONES:
+                final StringBuilder number = new StringBuilder();
+                for (int i = 0; i < 14; i++) {
+                    final int digit = random.nextInt(4) == 0 ? 2 + random.nextInt(8) : random.nextInt(2);
+                    number.append((char) ('0' + digit));
+                }
+                return number.toString();
+            default:
+                throw new IllegalArgumentException("Unknown kind of number: " + kind);
+        }
+    }
+
+    private static String digits(Random random, int length, int lowestDigit) {
+        final StringBuilder number = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            number.append((char) ('0' + lowestDigit + random.nextInt(10 - lowestDigit)));
+        }
+        return number.toString();
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.phonetoword.benchmark;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the bundled 26k word dictionary through each of the entry points of {@link DictionaryReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryLoadBenchmark {
+
+    private List<String> lines;
+    private byte[] bytes;
+    private Path wordList;
+    private Path snapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = Datasets.defaultDictionaryLines();
+        bytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        wordList = Files.createTempFile("dictionary", ".txt");
+        Files.write(wordList, bytes);
+        snapshot = Files.createTempFile("dictionary", ".bin");
+        DictionaryReader.export(DictionaryReader.load(wordList), snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(wordList);
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public Dictionary loadFromPath() throws IOException {
+        return DictionaryReader.load(wordList);
+    }
+
+    @Benchmark
+    public Dictionary loadFromInputStream() throws IOException {
+        return DictionaryReader.load(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public Dictionary loadFromStream() {
+        return DictionaryReader.load(lines.stream());
+    }
+
+    @Benchmark
+    public Dictionary loadSnapshot() throws IOException {
+        return DictionaryReader.loadSnapshot(snapshot);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.phonetoword.benchmark;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Dictionary#getWordsForNumber(String)} for a mix of numbers that are and are not in the dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryLookupBenchmark {
+
+    @Param({"trie", "packed"})
+    public String representation;
+
+    private Dictionary dictionary;
+    private String[] numbers;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = Datasets.defaultDictionary()) {
+            dictionary = DictionaryReader.load(in);
+        }
+        if ("packed".equals(representation)) {
+            dictionary = PackedDictionary.from(dictionary);
+        }
+
+        final List<String> keys = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> keys.add(number));
+        keys.addAll(Datasets.numbers(Datasets.Kind.SHORT, keys.size() / 4));
+        Collections.shuffle(keys, new Random(1800));
+        numbers = keys.toArray(new String[keys.size()]);
+    }
+
+    @Benchmark
+    public Set<String> getWordsForNumber() {
+        next = next + 1 == numbers.length ? 0 : next + 1;
+        return dictionary.getWordsForNumber(numbers[next]);
+    }
+
+}
@@ -1,24 +1,58 @@
 package com.phonetoword;
 
-import com.google.common.base.Joiner;
+import com.google.common.collect.AbstractIterator;
 
+import com.phonetoword.convertor.BatchConverter;
+import com.phonetoword.convertor.ConversionPipeline;
 import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.PhraseCheck;
+import com.phonetoword.convertor.ResultCache;
+import com.phonetoword.convertor.ResultSink;
+import com.phonetoword.convertor.ReverseConverter;
 import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.LocaleDictionaries;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.TrieDictionary;
+import com.phonetoword.dictionary.reader.DictionaryDelta;
 import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.dictionary.reader.ReloadableDictionary;
+import com.phonetoword.index.VanityIndex;
+import com.phonetoword.metrics.ConversionMetrics;
+import com.phonetoword.output.ResultWriter;
+import com.phonetoword.server.ConversionServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.management.JMException;
 
 /**
  * Main entry point of this utility. Validates the input parameters, and passes them on to the
@@ -29,100 +63,413 @@ public class Main {
     private static final String EXIT_COMMAND = "exit";
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
     private static final String DEFAULT_DICTIONARY_PATH = "data/default_dictionary.txt";
-    private static final Joiner JOINER = Joiner.on("\n").skipNulls();
+    private static final int SERVER_MAX_RESULTS = 1000;
+    private static final long SERVER_TIMEOUT_MILLIS = 5000;
 
     public static void main(String[] args) throws IOException {
 
-        List<Path> dataFileList = null;
-        final Dictionary dictionary;
+        final Options options;
+        try {
+            options = Options.parse(args);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.error(e.getMessage());
+            System.exit(1);
+            return;
+        }
 
-        if (args.length > 0) {
-            if (args[0].equalsIgnoreCase("-d")) {
-                dictionary = readDictionaryFromPath(args);
-                if (args.length > 2) {
-                    dataFileList = resolveFiles(args, 2);
-                }
-            } else {
-                dictionary = readDefaultDictionary();
-                dataFileList = resolveFiles(args, 0);
-            }
+        final ConversionMetrics metrics = options.isMetrics() ? new ConversionMetrics() : null;
+        final LocaleDictionaries locales;
+        try {
+            locales = options.getLocales().isEmpty() ? null : loadLocales(options, metrics);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.error(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        final Supplier<Dictionary> dictionarySource;
+        if (locales != null) {
+            final Dictionary defaultDictionary = locales.get(locales.getDefaultLocale());
+            dictionarySource = () -> defaultDictionary;
+        } else if (options.getDictionaryPath() == null) {
+            final Dictionary defaultDictionary = readDefaultDictionary(metrics);
+            dictionarySource = () -> defaultDictionary;
+        } else if (options.isWatch()) {
+            dictionarySource = watchDictionaryAtPath(options.getDictionaryPath(), options.isPacked(),
+                    options.getThreads(), metrics);
         } else {
-            dictionary = readDefaultDictionary();
+            final Dictionary dictionary = readDictionaryFromPath(options.getDictionaryPath(), options.isPacked(),
+                    options.getThreads(), metrics);
+            if (options.getDeltaPath() != null) {
+                watchDelta(options.getDeltaPath(), dictionary);
+            }
+            dictionarySource = () -> dictionary;
         }
+        final Dictionary dictionary = dictionarySource.get();
 
         if (dictionary.getTotalWordCount() == 0) {
             LOGGER.error("The dictionary file contains no words that can be mapped to phone number.");
             System.exit(1);
         }
 
-        final NumberToWordConverter numberToWordConverter = new NumberToWordConverter(dictionary);
+        if (options.getSnapshotPath() != null) {
+            DictionaryReader.export(dictionary, options.getSnapshotPath());
+            LOGGER.info("Exported {} words to dictionary snapshot {}.", dictionary.getTotalWordCount(),
+                    options.getSnapshotPath());
+            return;
+        }
+
+        if (options.getBuildIndexPath() != null) {
+            buildIndex(options, dictionary);
+            return;
+        }
 
-        if (dataFileList != null) {
-            fileParser(dataFileList, numberToWordConverter);
+        if (options.isReverse()) {
+            reverse(options, dictionarySource, options.getLocales().isEmpty() ? Keypad.STANDARD
+                    : keypad(options.getLocales().values().iterator().next()));
+            return;
+        }
+
+        final VanityIndex index = options.getIndexPath() == null ? null : loadIndex(options.getIndexPath());
+        final List<ResultCache> caches = new ArrayList<>();
+        final NumberToWordConverter numberToWordConverter =
+                new NumberToWordConverter(dictionarySource, newCache(options, caches), metrics, index);
+        publishMetrics(options, metrics);
+
+        if (options.getServePort() != -1) {
+            final Map<String, NumberToWordConverter> converters = new LinkedHashMap<>();
+            if (locales == null) {
+                converters.put("", numberToWordConverter);
+            } else {
+                // The index was built for the default dictionary, and results are cached per locale
+                converters.put(locales.getDefaultLocale(), numberToWordConverter);
+                for (final String locale : locales.getLocales()) {
+                    final Dictionary localeDictionary = locales.get(locale);
+                    converters.computeIfAbsent(locale, name -> new NumberToWordConverter(() -> localeDictionary,
+                            newCache(options, caches), metrics, null));
+                }
+            }
+            serve(options, converters, caches, metrics);
         } else {
-            cmdParser(numberToWordConverter);
+            try (ResultWriter output = openOutput(options); Stream<String> numbers = readInput(options)) {
+                // All files are fed through one pipeline, so that several small files keep every thread busy as well
+                convert(options, numberToWordConverter, numbers, output);
+            } catch (final UncheckedIOException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+            logStats(caches, metrics);
         }
     }
 
-    private static Dictionary readDictionaryFromPath(String[] args) throws IOException {
-        if(args.length==1){
-            LOGGER.error("Please provide a path to dictionary file if using -d param");
-            System.exit(1);
+    private static ResultCache newCache(Options options, List<ResultCache> caches) {
+        if (options.getCacheWords() == 0) {
+            return null;
+        }
+        final ResultCache cache =
+                new ResultCache(options.getCacheWords(), TimeUnit.SECONDS.toMillis(options.getCacheTtlSeconds()));
+        caches.add(cache);
+        return cache;
+    }
+
+    /**
+     * Each locale is loaded with its own keypad layout, then all of them are copied into one shared trie.
+     */
+    private static LocaleDictionaries loadLocales(Options options, ConversionMetrics metrics) throws IOException {
+        final long start = System.nanoTime();
+        final Map<String, Dictionary> sources = new LinkedHashMap<>();
+        for (final Options.LocaleSource locale : options.getLocales().values()) {
+            final Path dictionaryPath = locale.getDictionaryPath();
+            checkReadable(dictionaryPath);
+            final Keypad keypad = keypad(locale);
+            LOGGER.info("Loading dictionary {} of locale {} with the {} keypad.", dictionaryPath, locale.getName(),
+                    keypad);
+            sources.put(locale.getName(), DictionaryReader.isSnapshot(dictionaryPath)
+                    ? DictionaryReader.loadSnapshot(dictionaryPath) : DictionaryReader.load(dictionaryPath, keypad));
         }
-        final Path dictionaryPath = Paths.get(args[1]);
+        final LocaleDictionaries locales = new LocaleDictionaries(sources);
+        LOGGER.info("Holding {} locales in one trie of {} nodes with {} distinct words.", locales.getLocales().size(),
+                locales.getNodeCount(), locales.getDistinctWordCount());
+        recordLoad(metrics, start, locales.get(locales.getDefaultLocale()));
+        return locales;
+    }
+
+    /**
+     * @return the layout of a locale, read from a file if there is one at the path given as layout
+     */
+    private static Keypad keypad(Options.LocaleSource locale) throws IOException {
+        if (locale.getLayout() == null) {
+            return Keypad.STANDARD;
+        }
+        final Path layoutPath = Paths.get(locale.getLayout());
+        return Files.isRegularFile(layoutPath) ? Keypad.load(layoutPath) : Keypad.forName(locale.getLayout());
+    }
+
+    private static Dictionary readDictionaryFromPath(Path dictionaryPath, boolean packed, int threads,
+            ConversionMetrics metrics) throws IOException {
         LOGGER.info("Dictionary {} passed as arguement. Overriding default Dictionary.", dictionaryPath);
+        checkReadable(dictionaryPath);
+        return loadDictionary(dictionaryPath, packed, threads, metrics);
+    }
+
+    private static ReloadableDictionary watchDictionaryAtPath(Path dictionaryPath, boolean packed, int threads,
+            ConversionMetrics metrics) throws IOException {
+        LOGGER.info("Dictionary {} passed as arguement. Overriding default Dictionary and reloading it on change.",
+                dictionaryPath);
+        checkReadable(dictionaryPath);
+        return new ReloadableDictionary(dictionaryPath, path -> loadDictionary(path, packed, threads, metrics));
+    }
+
+    /**
+     * The delta is applied to the dictionary in place, so only a dictionary loaded from a word list can take one.
+     */
+    private static DictionaryDelta watchDelta(Path deltaPath, Dictionary dictionary) throws IOException {
+        if (!(dictionary instanceof TrieDictionary)) {
+            LOGGER.error("Dictionary delta {} can only be applied to a word list, not to a snapshot.", deltaPath);
+            System.exit(1);
+        }
+        LOGGER.info("Applying dictionary delta {} whenever it changes.", deltaPath);
+        return new DictionaryDelta((TrieDictionary) dictionary, deltaPath, Keypad.STANDARD);
+    }
+
+    private static void checkReadable(Path dictionaryPath) {
         if (!Files.isReadable(dictionaryPath)) {
             LOGGER.error("Dictionary file: {} is missing or not readable.", dictionaryPath);
             System.exit(1);
         }
-        return DictionaryReader.load(dictionaryPath);
     }
 
-    private static Dictionary readDefaultDictionary() throws IOException {
-        return DictionaryReader.load(Main.class.getClassLoader().getResourceAsStream(DEFAULT_DICTIONARY_PATH));
+    private static Dictionary loadDictionary(Path dictionaryPath, boolean packed, int threads,
+            ConversionMetrics metrics) throws IOException {
+        final long start = System.nanoTime();
+        return recordLoad(metrics, start, parseDictionary(dictionaryPath, packed, threads));
     }
 
-    private static void fileParser(final List<Path> dataFileList, final NumberToWordConverter numberToWordConverter) {
-        dataFileList.forEach(df -> {
-            if (Files.isReadable(df)) {
-                try {
-                    printGeneratedWords(numberToWordConverter.process(df));
-                } catch (final Exception e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-            } else {
+    private static Dictionary parseDictionary(Path dictionaryPath, boolean packed, int threads) throws IOException {
+        if (DictionaryReader.isSnapshot(dictionaryPath)) {
+            return DictionaryReader.loadSnapshot(dictionaryPath);
+        }
+        if (threads == 1) {
+            return packed ? DictionaryReader.loadPacked(dictionaryPath) : DictionaryReader.load(dictionaryPath);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final TrieDictionary dictionary = DictionaryReader.loadInParallel(dictionaryPath, pool);
+            return packed ? PackedDictionary.from(dictionary) : dictionary;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Blocks are enumerated on every thread, so the index can be rebuilt quickly whenever the dictionary changes.
+     */
+    private static void buildIndex(Options options, Dictionary dictionary) throws IOException {
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        final VanityIndex index;
+        try {
+            index = VanityIndex.build(dictionary, options.getBlockLength(), pool);
+        } finally {
+            pool.shutdown();
+        }
+        index.write(options.getBuildIndexPath());
+        LOGGER.info("Indexed {} blocks of {} digits with {} edges to {} in {} ms.", index.getBlockCount(),
+                index.getBlockLength(), index.getEdgeCount(), options.getBuildIndexPath(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static VanityIndex loadIndex(Path indexPath) throws IOException {
+        if (!Files.isReadable(indexPath)) {
+            LOGGER.error("Index file: {} is missing or not readable.", indexPath);
+            System.exit(1);
+        }
+        final VanityIndex index = VanityIndex.load(indexPath);
+        LOGGER.info("Looking numbers of exactly {} digits up in index {} of {} blocks.", index.getBlockLength(),
+                indexPath, index.getBlockCount());
+        return index;
+    }
+
+    private static Dictionary readDefaultDictionary(ConversionMetrics metrics) throws IOException {
+        final long start = System.nanoTime();
+        return recordLoad(metrics, start,
+                DictionaryReader.load(Main.class.getClassLoader().getResourceAsStream(DEFAULT_DICTIONARY_PATH)));
+    }
+
+    private static Dictionary recordLoad(ConversionMetrics metrics, long start, Dictionary dictionary) {
+        if (metrics != null) {
+            metrics.recordDictionaryLoad(dictionary, System.nanoTime() - start);
+        }
+        return dictionary;
+    }
+
+    private static void publishMetrics(Options options, ConversionMetrics metrics) {
+        if (metrics == null) {
+            return;
+        }
+        try {
+            metrics.register();
+        } catch (final JMException e) {
+            LOGGER.warn("Could not publish metrics over JMX: {}", e.getMessage());
+        }
+        if (options.getMetricsIntervalSeconds() > 0) {
+            metrics.logEvery(options.getMetricsIntervalSeconds());
+        }
+    }
+
+    /**
+     * Results go to their own buffered stream, standard output unless a file was passed, and logging is left for
+     * diagnostics.
+     */
+    private static ResultWriter openOutput(Options options) throws IOException {
+        return new ResultWriter(openStream(options), options.getOutputFormat());
+    }
+
+    private static OutputStream openStream(Options options) throws IOException {
+        return options.getOutputPath() == null ? System.out : Files.newOutputStream(options.getOutputPath());
+    }
+
+    /**
+     * @return the lines of every readable data file one after the other, or of STDIN if no data file was passed
+     */
+    private static Stream<String> readInput(Options options) {
+        if (options.getDataFiles().isEmpty()) {
+            return readStdin();
+        }
+        final List<Path> dataFileList = options.getDataFiles().stream().filter(df -> {
+            if (!Files.isReadable(df)) {
                 LOGGER.error("Data file: {} is missing or not readable.", df);
+                return false;
             }
-        });
+            return true;
+        }).collect(Collectors.toList());
+        return dataFileList.stream().flatMap(Main::lines);
+    }
+
+    private static void serve(final Options options, final Map<String, NumberToWordConverter> converters,
+            final List<ResultCache> caches, final ConversionMetrics metrics) throws IOException {
+        final ConversionServer server = new ConversionServer(converters,
+                new InetSocketAddress(options.getServePort()), options.getThreads(), SERVER_MAX_RESULTS,
+                SERVER_TIMEOUT_MILLIS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            logStats(caches, metrics);
+        }, "conversion-server-shutdown"));
+        server.start();
+        LOGGER.info("Serving conversions on http://{}:{}/convert on {} threads.",
+                server.getAddress().getHostString(), server.getAddress().getPort(), options.getThreads());
     }
 
-    private static void cmdParser(final NumberToWordConverter numberToWordConverter) {
+    /**
+     * Each line is answered as soon as it is read.
+     */
+    private static Stream<String> readStdin() {
         LOGGER.info("No data file specified. Taking input from STDIN.");
-        try (Scanner in = new Scanner(System.in, StandardCharsets.UTF_8.name())) {
-            final List<String> numbers = new ArrayList<>();
-            String line;
-            LOGGER.info("Please enter one phone number per line. Type \"{}\" if you want to end:", EXIT_COMMAND);
-            while (true) {
-                line = in.nextLine().trim();
-                if (line.contains(EXIT_COMMAND)) {
-                    LOGGER.info("Completed taking all numbers as input. Please find the result below:");
-                    break;
-                } else {
-                    numbers.add(line);
+        LOGGER.info("Please enter one line at a time. Type \"{}\" if you want to end:", EXIT_COMMAND);
+        final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        final Iterator<String> lines = new AbstractIterator<String>() {
+
+            @Override
+            protected String computeNext() {
+                final String line;
+                try {
+                    line = in.readLine();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+                return line == null || line.contains(EXIT_COMMAND) ? endOfData() : line;
+            }
+
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Check vanity phrases instead of converting numbers, one tab separated line per phrase: the phrase, its number
+     * and either <code>valid</code> or the words that are not in the dictionary. Phrases read from files are checked
+     * on every thread, in order; phrases typed on STDIN are answered one by one.
+     */
+    private static void reverse(Options options, Supplier<Dictionary> dictionarySource, Keypad keypad)
+            throws IOException {
+        final ReverseConverter reverseConverter = new ReverseConverter(dictionarySource, keypad);
+        final boolean interactive = options.getDataFiles().isEmpty();
+        final ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(openStream(options), StandardCharsets.UTF_8));
+                Stream<String> phrases = readInput(options)) {
+            final Stream<String> source = interactive || options.getThreads() == 1 ? phrases : phrases.parallel();
+            // Parallel streams run on the pool they are started from
+            pool.submit(() -> reverseConverter.check(source).forEachOrdered(check -> {
+                try {
+                    writeCheck(out, check);
+                    if (interactive) {
+                        out.flush();
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            LOGGER.error(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void writeCheck(Writer out, PhraseCheck check) throws IOException {
+        out.write(check.getPhrase());
+        out.write('\t');
+        out.write(check.getNumber());
+        out.write('\t');
+        if (check.isValid()) {
+            out.write("valid");
+        } else if (check.getWordCount() == 0) {
+            out.write("no words");
+        } else {
+            out.write("unknown ");
+            out.write(String.join(",", check.getUnknownWords()));
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Convert numbers through the pipeline, or when order does not matter through a batch converter, which hands out
+     * every number as soon as it is done.
+     */
+    private static void convert(final Options options, final NumberToWordConverter numberToWordConverter,
+            final Stream<String> numbers, final ResultSink output) {
+        if (options.isUnordered()) {
+            try (BatchConverter batchConverter = new BatchConverter(numberToWordConverter, options.getThreads(),
+                    false, options.getSearchBudget())) {
+                batchConverter.process(numbers, output);
+            }
+        } else {
+            try (ConversionPipeline pipeline =
+                    new ConversionPipeline(numberToWordConverter, options.getThreads(), options.getSearchBudget())) {
+                pipeline.process(numbers, output);
             }
-            printGeneratedWords(numberToWordConverter.process(numbers.stream()));
         }
     }
 
-    private static void printGeneratedWords(Map<String, List<String>> wordMap) {
-        wordMap.entrySet().forEach(
-                es -> LOGGER.info("List of possible words for number {} are:\n{}", es.getKey(),
-                        JOINER.join(es.getValue())));
+    private static void logStats(List<ResultCache> caches, ConversionMetrics metrics) {
+        for (final ResultCache cache : caches) {
+            LOGGER.info("Result cache holds {} numbers: {}", cache.size(), cache.stats());
+        }
+        if (metrics != null) {
+            LOGGER.info("Metrics: {}", metrics.summary());
+            try {
+                metrics.close();
+            } catch (final JMException e) {
+                LOGGER.warn("Could not unpublish metrics: {}", e.getMessage());
+            }
+        }
     }
 
-    private static List<Path> resolveFiles(String[] args, int index) {
-        return Arrays.stream(Arrays.copyOfRange(args, index, args.length)).map(Paths::get).collect(Collectors.toList());
+    private static Stream<String> lines(Path path) {
+        try {
+            return Files.lines(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,360 @@
+package com.phonetoword;
+
+import com.phonetoword.convertor.SearchBudget;
+import com.phonetoword.index.VanityIndex;
+import com.phonetoword.output.OutputFormat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of this utility.
+ *
+ * <pre>
+ * [-d pathToDictionary] [--watch] [--delta pathToDelta] [--packed] [--threads N] [--unordered]
+ * [--export-snapshot pathToSnapshot] [--serve PORT] [--cache WORDS] [--cache-ttl SECONDS]
+ * [--metrics] [--metrics-interval SECONDS] [--max-results N] [--max-millis N] [--max-nodes N] [--max-depth N]
+ * [--format plain|tsv|json] [--output FILE] [--build-index pathToIndex] [--block-length N] [--index pathToIndex]
+ * [--reverse] [--locale NAME[:LAYOUT]=pathToDictionary].. [pathToDatafiles..]
+ * </pre>
+ */
+final class Options {
+
+    private static final int MAX_PORT = 65_535;
+    private static final int DEFAULT_BLOCK_LENGTH = 7;
+
+    private Path dictionaryPath;
+    private final List<Path> dataFiles = new ArrayList<>();
+    private int threads = 1;
+    private boolean unordered;
+    private Path snapshotPath;
+    private boolean packed;
+    private boolean watch;
+    private Path deltaPath;
+    private int servePort = -1;
+    private int cacheWords;
+    private int cacheTtlSeconds;
+    private boolean metrics;
+    private int metricsIntervalSeconds;
+    private int maxResults;
+    private int maxMillis;
+    private int maxNodes;
+    private int maxDepth;
+    private OutputFormat outputFormat = OutputFormat.PLAIN;
+    private Path outputPath;
+    private Path buildIndexPath;
+    private int blockLength = DEFAULT_BLOCK_LENGTH;
+    private Path indexPath;
+    private boolean reverse;
+    private final Map<String, LocaleSource> locales = new LinkedHashMap<>();
+
+    private Options() {}
+
+    /**
+     * Parse the command line arguments.
+     *
+     * @param args arguments passed to <code>main</code>
+     * @return parsed options
+     * @throws IllegalArgumentException if an option is missing its value or the value is invalid
+     */
+    static Options parse(String[] args) {
+        final Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (arg.equalsIgnoreCase("-d")) {
+                options.dictionaryPath =
+                        Paths.get(value(args, ++i, "Please provide a path to dictionary file if using -d param"));
+            } else if (arg.equals("--threads")) {
+                options.threads = positiveInt(value(args, ++i, "Please provide a number of threads"), arg);
+            } else if (arg.equals("--unordered")) {
+                options.unordered = true;
+            } else if (arg.equals("--watch")) {
+                options.watch = true;
+            } else if (arg.equals("--delta")) {
+                options.deltaPath = Paths.get(value(args, ++i, "Please provide a path to a dictionary delta file"));
+            } else if (arg.equals("--packed")) {
+                options.packed = true;
+            } else if (arg.equals("--export-snapshot")) {
+                options.snapshotPath = Paths.get(value(args, ++i, "Please provide a path to write the snapshot to"));
+            } else if (arg.equals("--serve")) {
+                options.servePort = positiveInt(value(args, ++i, "Please provide a port to serve on"), arg);
+                if (options.servePort > MAX_PORT) {
+                    throw new IllegalArgumentException(arg + " expects a port number but got: " + options.servePort);
+                }
+            } else if (arg.equals("--cache")) {
+                options.cacheWords = positiveInt(value(args, ++i, "Please provide a number of words to cache"), arg);
+            } else if (arg.equals("--cache-ttl")) {
+                options.cacheTtlSeconds =
+                        positiveInt(value(args, ++i, "Please provide a number of seconds to cache for"), arg);
+            } else if (arg.equals("--metrics")) {
+                options.metrics = true;
+            } else if (arg.equals("--metrics-interval")) {
+                options.metricsIntervalSeconds =
+                        positiveInt(value(args, ++i, "Please provide a number of seconds between metrics logs"), arg);
+                options.metrics = true;
+            } else if (arg.equals("--max-results")) {
+                options.maxResults = positiveInt(value(args, ++i, "Please provide a number of words"), arg);
+            } else if (arg.equals("--max-millis")) {
+                options.maxMillis = positiveInt(value(args, ++i, "Please provide a number of milliseconds"), arg);
+            } else if (arg.equals("--max-nodes")) {
+                options.maxNodes = positiveInt(value(args, ++i, "Please provide a number of search nodes"), arg);
+            } else if (arg.equals("--max-depth")) {
+                options.maxDepth = positiveInt(value(args, ++i, "Please provide a number of words and digits"), arg);
+            } else if (arg.equals("--format")) {
+                options.outputFormat = OutputFormat.parse(value(args, ++i, "Please provide an output format"));
+            } else if (arg.equals("--output")) {
+                options.outputPath = Paths.get(value(args, ++i, "Please provide a file to write the words to"));
+            } else if (arg.equals("--build-index")) {
+                options.buildIndexPath = Paths.get(value(args, ++i, "Please provide a path to write the index to"));
+            } else if (arg.equals("--block-length")) {
+                options.blockLength = positiveInt(value(args, ++i, "Please provide a number of digits"), arg);
+                if (options.blockLength > VanityIndex.MAX_BLOCK_LENGTH) {
+                    throw new IllegalArgumentException(arg + " expects at most " + VanityIndex.MAX_BLOCK_LENGTH
+                            + " digits but got: " + options.blockLength);
+                }
+            } else if (arg.equals("--index")) {
+                options.indexPath = Paths.get(value(args, ++i, "Please provide a path to an index"));
+            } else if (arg.equals("--reverse")) {
+                options.reverse = true;
+            } else if (arg.equals("--locale")) {
+                final LocaleSource locale = LocaleSource.parse(
+                        value(args, ++i, "Please provide a locale as NAME[:LAYOUT]=pathToDictionary"), arg);
+                if (options.locales.put(locale.getName(), locale) != null) {
+                    throw new IllegalArgumentException(arg + " " + locale.getName() + " is passed more than once");
+                }
+            } else {
+                options.dataFiles.add(Paths.get(arg));
+            }
+        }
+        if (options.watch && options.dictionaryPath == null) {
+            throw new IllegalArgumentException("--watch needs a dictionary file passed with -d");
+        }
+        if (options.deltaPath != null && (options.dictionaryPath == null || options.watch || options.packed)) {
+            throw new IllegalArgumentException("--delta needs a dictionary file passed with -d, without --watch or "
+                    + "--packed");
+        }
+        if (options.indexPath != null && (options.watch || options.deltaPath != null)) {
+            // The index is built from the dictionary as it was, and would keep answering with words it no longer has
+            throw new IllegalArgumentException("--index cannot be combined with --watch or --delta");
+        }
+        if (!options.locales.isEmpty() && (options.dictionaryPath != null || options.packed)) {
+            throw new IllegalArgumentException("--locale cannot be combined with -d or --packed");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String message) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(message);
+        }
+        return args[index];
+    }
+
+    private static int positiveInt(String value, String option) {
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects a positive number but got: " + value, e);
+        }
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(option + " expects a positive number but got: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * @return dictionary passed with -d, or <code>null</code> to use the default dictionary
+     */
+    Path getDictionaryPath() {
+        return dictionaryPath;
+    }
+
+    List<Path> getDataFiles() {
+        return Collections.unmodifiableList(dataFiles);
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    boolean isUnordered() {
+        return unordered;
+    }
+
+    /**
+     * @return whether the dictionary passed with -d should be reloaded whenever it changes
+     */
+    boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * @return delta file to apply in place to the dictionary passed with -d whenever it changes, or <code>null</code>
+     */
+    Path getDeltaPath() {
+        return deltaPath;
+    }
+
+    /**
+     * @return whether a word list should be loaded into a packed, off-heap dictionary
+     */
+    boolean isPacked() {
+        return packed;
+    }
+
+    /**
+     * @return port to serve conversions over HTTP on, or -1 to convert the data files or STDIN
+     */
+    int getServePort() {
+        return servePort;
+    }
+
+    /**
+     * @return maximum number of words to cache, or 0 not to cache results
+     */
+    int getCacheWords() {
+        return cacheWords;
+    }
+
+    /**
+     * @return number of seconds to keep cached results for, or 0 to keep them until evicted
+     */
+    int getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    /**
+     * @return whether conversions should be measured and the metrics published over JMX and logged
+     */
+    boolean isMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return number of seconds between two logs of the metrics, or 0 to only log them at the end
+     */
+    int getMetricsIntervalSeconds() {
+        return metricsIntervalSeconds;
+    }
+
+    /**
+     * @return limits on the work spent on each number, or <code>null</code> if none were passed
+     */
+    SearchBudget getSearchBudget() {
+        if (maxResults == 0 && maxMillis == 0 && maxNodes == 0 && maxDepth == 0) {
+            return null;
+        }
+        return new SearchBudget(maxNodes == 0 ? Long.MAX_VALUE : maxNodes,
+                maxMillis == 0 ? Long.MAX_VALUE : maxMillis, maxResults == 0 ? Integer.MAX_VALUE : maxResults,
+                maxDepth == 0 ? Integer.MAX_VALUE : maxDepth);
+    }
+
+    OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * @return file to write the words to, or <code>null</code> for standard output
+     */
+    Path getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * @return file to export the dictionary to instead of converting numbers, or <code>null</code>
+     */
+    Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * @return file to write an index of the blocks of {@link #getBlockLength()} digits to instead of converting
+     *         numbers, or <code>null</code>
+     */
+    Path getBuildIndexPath() {
+        return buildIndexPath;
+    }
+
+    /**
+     * @return number of digits of each block of an index to build
+     */
+    int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * @return index to look numbers of exactly its block length up in, or <code>null</code> to convert every number
+     */
+    Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * @return whether the input holds vanity phrases to check against the dictionary rather than numbers to convert
+     */
+    boolean isReverse() {
+        return reverse;
+    }
+
+    /**
+     * @return dictionaries passed with --locale, by name and in the order they were passed, empty to use a single
+     *         dictionary
+     */
+    Map<String, LocaleSource> getLocales() {
+        return Collections.unmodifiableMap(locales);
+    }
+
+    /**
+     * The dictionary of a locale and the keypad layout its words are dialed on, passed as
+     * <code>NAME[:LAYOUT]=pathToDictionary</code>.
+     */
+    static final class LocaleSource {
+
+        private final String name;
+        private final String layout;
+        private final Path dictionaryPath;
+
+        private LocaleSource(String name, String layout, Path dictionaryPath) {
+            this.name = name;
+            this.layout = layout;
+            this.dictionaryPath = dictionaryPath;
+        }
+
+        private static LocaleSource parse(String value, String option) {
+            final int equals = value.indexOf('=');
+            final int colon = value.lastIndexOf(':', equals);
+            if (equals <= 0 || equals == value.length() - 1 || colon == 0 || colon == equals - 1) {
+                throw new IllegalArgumentException(
+                        option + " expects NAME[:LAYOUT]=pathToDictionary but got: " + value);
+            }
+            final Path dictionaryPath = Paths.get(value.substring(equals + 1));
+            if (colon < 0) {
+                return new LocaleSource(value.substring(0, equals), null, dictionaryPath);
+            }
+            return new LocaleSource(value.substring(0, colon), value.substring(colon + 1, equals), dictionaryPath);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return name of a built in keypad layout or path of a layout file, or <code>null</code> for the standard one
+         */
+        String getLayout() {
+            return layout;
+        }
+
+        Path getDictionaryPath() {
+            return dictionaryPath;
+        }
+
+    }
+
+}
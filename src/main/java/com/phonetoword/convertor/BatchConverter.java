@@ -0,0 +1,186 @@
+package com.phonetoword.convertor;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import com.google.common.util.concurrent.Futures;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Converts large batches of numbers on a pool of threads.
+ * <p>
+ * Numbers are read on the calling thread and converted on the pool, with at most a few numbers per thread in flight
+ * so that memory stays bounded however large the input is. The worker collects the first
+ * {@value ConversionPipeline#WORDS_PER_SLOT} words of a number, and they are handed to the sink followed by the rest of
+ * them, generated as the sink reads on. No more than that many words of a number are held at once, however many it
+ * has, and all but the largest numbers are generated in full before the sink sees them, so a sink that writes one
+ * number at a time does not hold the other threads up while words are generated. The words are handed over in input
+ * order on the calling thread or, when ordering is not needed, straight from the worker thread as soon as the number
+ * is done. In the latter case the sink must be thread safe.
+ * With a {@link SearchBudget}, every number is converted within its own budget, and the sink is told which numbers were
+ * truncated.
+ * <p>
+ * The dictionary is only ever read during conversion, so a single one is shared by all threads.
+ */
+public class BatchConverter implements AutoCloseable {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    private final NumberToWordConverter converter;
+    private final ForkJoinPool pool;
+    private final boolean ordered;
+    private final int maxInFlight;
+    private final SearchBudget budget;
+
+    /**
+     * @param converter converter used for each number
+     * @param threads number of threads to convert on
+     * @param ordered whether the sink must see numbers in input order
+     */
+    public BatchConverter(NumberToWordConverter converter, int threads, boolean ordered) {
+        this(converter, threads, ordered, null);
+    }
+
+    /**
+     * @param converter converter used for each number
+     * @param threads number of threads to convert on
+     * @param ordered whether the sink must see numbers in input order
+     * @param budget limits on the work spent on each number, or <code>null</code> for none
+     */
+    public BatchConverter(NumberToWordConverter converter, int threads, boolean ordered, SearchBudget budget) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.converter = converter;
+        this.pool = new ForkJoinPool(threads);
+        this.ordered = ordered;
+        this.maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        this.budget = budget;
+    }
+
+    /**
+     * Convert every number in a file.
+     *
+     * @param path file with one number per line
+     * @param sink receives the words of each number
+     * @throws IOException
+     */
+    public void process(Path path, ResultSink sink) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            process(br.lines(), sink);
+        }
+    }
+
+    /**
+     * Convert every number in a stream. Returns once the sink has received every number.
+     *
+     * @param lines stream of numbers
+     * @param sink receives the words of each number
+     */
+    public void process(Stream<String> lines, ResultSink sink) {
+        final Deque<Future<Result>> inFlight = new ArrayDeque<>(maxInFlight);
+        lines.map(NumberToWordConverter::keepOnlyDigits).filter(number -> !isNullOrEmpty(number)).forEach(number -> {
+            if (inFlight.size() == maxInFlight) {
+                complete(inFlight.poll(), sink);
+            }
+            inFlight.add(pool.submit(() -> convert(number, sink)));
+        });
+        while (!inFlight.isEmpty()) {
+            complete(inFlight.poll(), sink);
+        }
+    }
+
+    /**
+     * Runs on a worker thread. Unordered results go straight to the sink, ordered ones are passed back to the
+     * calling thread.
+     */
+    private Result convert(String number, ResultSink sink) {
+        final Result result;
+        if (budget == null) {
+            final Iterator<String> words = converter.iterator(number);
+            final List<String> head = new ArrayList<>();
+            while (head.size() < ConversionPipeline.WORDS_PER_SLOT && words.hasNext()) {
+                head.add(words.next());
+            }
+            result = new Result(number, head, words.hasNext() ? words : null, false);
+        } else {
+            final Conversion conversion = converter.convert(number, budget);
+            result = new Result(number, conversion.getWords(), null, conversion.isTruncated());
+        }
+        if (!ordered) {
+            deliver(result, sink);
+            return null;
+        }
+        return result;
+    }
+
+    private void complete(Future<Result> future, ResultSink sink) {
+        final Result result = Futures.getUnchecked(future);
+        if (result != null) {
+            deliver(result, sink);
+        }
+    }
+
+    private void deliver(Result result, ResultSink sink) {
+        try (Stream<String> words = words(result)) {
+            if (budget == null) {
+                sink.accept(result.number, words);
+            } else {
+                sink.accept(result.number, words, result.truncated);
+            }
+        }
+    }
+
+    /**
+     * @return the words collected on the worker followed by the rest of them, which are recorded once the stream is
+     *         closed if the sink does not read them all
+     */
+    private static Stream<String> words(Result result) {
+        if (result.rest == null) {
+            return result.words.stream();
+        }
+        final Stream<String> words = Stream.concat(result.words.stream(), StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(result.rest, Spliterator.ORDERED | Spliterator.NONNULL), false));
+        return result.rest instanceof MeteredIterator
+                ? words.onClose(((MeteredIterator) result.rest)::finish) : words;
+    }
+
+    /**
+     * Shut the thread pool down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static final class Result {
+
+        private final String number;
+        private final List<String> words;
+        private final Iterator<String> rest;
+        private final boolean truncated;
+
+        Result(String number, List<String> words, Iterator<String> rest, boolean truncated) {
+            this.number = number;
+            this.words = words;
+            this.rest = rest;
+            this.truncated = truncated;
+        }
+
+    }
+
+}
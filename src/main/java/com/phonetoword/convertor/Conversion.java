@@ -0,0 +1,41 @@
+package com.phonetoword.convertor;
+
+import java.util.List;
+
+/**
+ * The words of a number converted within a {@link SearchBudget}.
+ */
+public final class Conversion {
+
+    private final String number;
+    private final List<String> words;
+    private final boolean truncated;
+
+    Conversion(String number, List<String> words, boolean truncated) {
+        this.number = number;
+        this.words = words;
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return the number, reduced to its digits
+     */
+    public String getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the words found, in the order {@link NumberToWordConverter#convert(String)} gives them
+     */
+    public List<String> getWords() {
+        return words;
+    }
+
+    /**
+     * @return whether the budget ran out, so that the number may have more words than these
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+}
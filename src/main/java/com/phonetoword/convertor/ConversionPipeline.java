@@ -0,0 +1,297 @@
+package com.phonetoword.convertor;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Converts a stream of numbers in three stages connected by a Disruptor ring buffer: the calling thread reads the
+ * numbers into the ring, a pool of workers converts each one, and a single writer hands them to the sink in input
+ * order.
+ * <p>
+ * Each number takes a slot of the ring from when it is read until it is written, so the ring bounds the numbers in
+ * flight: once it is full the reader waits for the writer, and memory stays bounded however long the input is. A
+ * worker keeps at most {@value #WORDS_PER_SLOT} words of a number in its slot; the rest of a number with more words
+ * is generated lazily by the writer as the sink reads it. Numbers are handed over as soon as they and every number
+ * before them are converted, and a sink that is {@link Flushable} is flushed whenever the writer catches up with the
+ * workers, so numbers read from an interactive input are answered as they arrive.
+ * <p>
+ * With a {@link SearchBudget}, every number is converted within its own budget and the sink is told which numbers
+ * were truncated.
+ * <p>
+ * A number that fails to convert, with an exception or an error, takes the failure to the writer in its slot, so the
+ * pipeline keeps going and {@link #process(Stream, ResultSink)} throws it at the end.
+ */
+public class ConversionPipeline implements AutoCloseable {
+
+    /** Default number of slots of the ring. */
+    public static final int DEFAULT_RING_SIZE = 256;
+    static final int WORDS_PER_SLOT = 4096;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionPipeline.class);
+
+    private final NumberToWordConverter converter;
+    private final SearchBudget budget;
+    private final ExecutorService executor;
+    private final Disruptor<Slot> disruptor;
+    private final RingBuffer<Slot> ringBuffer;
+    private volatile ResultSink sink;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param converter converter used for each number
+     * @param workers number of threads to convert on
+     * @param budget limits on the work spent on each number, or <code>null</code> for none
+     */
+    public ConversionPipeline(NumberToWordConverter converter, int workers, SearchBudget budget) {
+        this(converter, workers, DEFAULT_RING_SIZE, budget);
+    }
+
+    /**
+     * @param converter converter used for each number
+     * @param workers number of threads to convert on
+     * @param ringSize maximum number of numbers in flight, a power of two
+     * @param budget limits on the work spent on each number, or <code>null</code> for none
+     */
+    public ConversionPipeline(NumberToWordConverter converter, int workers, int ringSize, SearchBudget budget) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+        }
+        if (ringSize < 1 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + ringSize);
+        }
+        this.converter = converter;
+        this.budget = budget;
+        // One thread per worker and one for the writer
+        this.executor = Executors.newFixedThreadPool(workers + 1,
+                new ThreadFactoryBuilder().setNameFormat("conversion-pipeline-%d").setDaemon(true).build());
+        this.disruptor =
+                new Disruptor<>(Slot::new, ringSize, executor, ProducerType.SINGLE, new BlockingWaitStrategy());
+        // Before the handlers are added, which take the exception handler set at the time
+        disruptor.handleExceptionsWith(new KeepRunning());
+        final Worker[] pool = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            pool[i] = new Worker();
+        }
+        final Writer[] writer = {new Writer()};
+        disruptor.handleEventsWithWorkerPool(pool).then(writer);
+        this.ringBuffer = disruptor.start();
+    }
+
+    /**
+     * Convert every number in a stream. The stream is read lazily, one number at a time, and this returns once the
+     * sink has received every number.
+     *
+     * @param lines stream of numbers
+     * @param sink receives the words of each number, on the writer thread
+     * @throws RuntimeException the first exception or error thrown converting a number or by the sink, once every
+     *         other number has been handed over. Errors are thrown as they are.
+     */
+    public synchronized void process(Stream<String> lines, ResultSink sink) {
+        this.sink = sink;
+        failure.set(null);
+        lines.map(NumberToWordConverter::keepOnlyDigits).filter(number -> !isNullOrEmpty(number))
+                .forEach(number -> publish(number, null));
+        final CountDownLatch drained = new CountDownLatch(1);
+        publish(null, drained);
+        Uninterruptibles.awaitUninterruptibly(drained);
+        final Throwable first = failure.getAndSet(null);
+        if (first != null) {
+            throw Throwables.propagate(first);
+        }
+    }
+
+    /**
+     * Wait for the numbers in flight and stop the threads.
+     */
+    @Override
+    public void close() {
+        disruptor.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * Claim the next slot, waiting for the writer to free one if the ring is full.
+     */
+    private void publish(String number, CountDownLatch drained) {
+        final long sequence = ringBuffer.next();
+        try {
+            final Slot slot = ringBuffer.get(sequence);
+            slot.number = number;
+            slot.drained = drained;
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    private void fail(Throwable e) {
+        failure.compareAndSet(null, e);
+    }
+
+    /**
+     * A number in flight and, once converted, its words.
+     */
+    private static final class Slot {
+
+        String number;
+        /** Set instead of a number to mark the end of the input. */
+        CountDownLatch drained;
+        List<String> words;
+        Iterator<String> rest;
+        boolean truncated;
+        Throwable failure;
+
+        void clear() {
+            number = null;
+            drained = null;
+            words = null;
+            rest = null;
+            truncated = false;
+            failure = null;
+        }
+
+    }
+
+    /**
+     * Converts numbers. The workers share the slots between them, each slot is converted by exactly one.
+     */
+    private final class Worker implements WorkHandler<Slot> {
+
+        @Override
+        public void onEvent(Slot slot) {
+            if (slot.number == null) {
+                return;
+            }
+            try {
+                if (budget == null) {
+                    final Iterator<String> words = converter.iterator(slot.number);
+                    final List<String> head = new ArrayList<>();
+                    while (head.size() < WORDS_PER_SLOT && words.hasNext()) {
+                        head.add(words.next());
+                    }
+                    slot.words = head;
+                    slot.rest = words.hasNext() ? words : null;
+                } else {
+                    final Conversion conversion = converter.convert(slot.number, budget);
+                    slot.words = conversion.getWords();
+                    slot.truncated = conversion.isTruncated();
+                }
+            } catch (final Throwable e) {
+                // The slot is handed to the writer even so, which reports the failure in order
+                slot.failure = e;
+            }
+        }
+
+    }
+
+    /**
+     * Hands the numbers to the sink in input order. It only sees a slot once every worker is past it.
+     */
+    private final class Writer implements EventHandler<Slot> {
+
+        @Override
+        public void onEvent(Slot slot, long sequence, boolean endOfBatch) {
+            try {
+                if (slot.drained != null) {
+                    flush();
+                    slot.drained.countDown();
+                } else if (slot.failure != null) {
+                    fail(slot.failure);
+                } else {
+                    write(slot);
+                    if (endOfBatch) {
+                        flush();
+                    }
+                }
+            } catch (final Throwable e) {
+                fail(e);
+            } finally {
+                slot.clear();
+            }
+        }
+
+        private void write(Slot slot) {
+            try (Stream<String> words = words(slot)) {
+                if (budget == null) {
+                    sink.accept(slot.number, words);
+                } else {
+                    sink.accept(slot.number, words, slot.truncated);
+                }
+            }
+        }
+
+        /**
+         * @return the words kept in the slot followed by the rest of them, which are recorded once the stream is closed
+         *         if the sink does not read them all
+         */
+        private Stream<String> words(Slot slot) {
+            if (slot.rest == null) {
+                return slot.words.stream();
+            }
+            final Stream<String> words = Stream.concat(slot.words.stream(), StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize(slot.rest, Spliterator.ORDERED | Spliterator.NONNULL), false));
+            return slot.rest instanceof MeteredIterator ? words.onClose(((MeteredIterator) slot.rest)::finish) : words;
+        }
+
+        private void flush() {
+            if (sink instanceof Flushable) {
+                try {
+                    ((Flushable) sink).flush();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Keeps a handler running should it throw, rather than stopping its thread and with it the whole ring. Failures
+     * to convert a number never get here, they are handed on in their slot.
+     */
+    private static final class KeepRunning implements ExceptionHandler {
+
+        @Override
+        public void handleEventException(Throwable ex, long sequence, Object event) {
+            LOGGER.error("Slot {} failed outside of its conversion: {}", sequence, ex.getMessage(), ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex) {
+            LOGGER.error("Could not start the conversion pipeline: {}", ex.getMessage(), ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex) {
+            LOGGER.error("Could not stop the conversion pipeline: {}", ex.getMessage(), ex);
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.phonetoword.convertor;
+
+import com.phonetoword.metrics.ConversionMetrics;
+
+import java.util.Iterator;
+
+/**
+ * Counts the words of a number as they are handed out, and records the number with its latency once the words run
+ * out or the stream they are read through is closed, whichever comes first.
+ */
+final class MeteredIterator implements Iterator<String> {
+
+    private final Iterator<String> words;
+    private final ConversionMetrics metrics;
+    private final long startNanos;
+    private long count;
+    private boolean finished;
+
+    MeteredIterator(Iterator<String> words, ConversionMetrics metrics, long startNanos) {
+        this.words = words;
+        this.metrics = metrics;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (words.hasNext()) {
+            return true;
+        }
+        finish();
+        return false;
+    }
+
+    @Override
+    public String next() {
+        final String word = words.next();
+        count++;
+        return word;
+    }
+
+    /**
+     * Record the number, unless it already has been.
+     */
+    void finish() {
+        if (!finished) {
+            finished = true;
+            metrics.recordNumber(startNanos, count);
+        }
+    }
+
+}
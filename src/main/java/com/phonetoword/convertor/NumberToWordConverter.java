@@ -1,28 +1,52 @@
 package com.phonetoword.convertor;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static java.lang.Character.isDigit;
 
 import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
 
 import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.WordFrequencies;
+import com.phonetoword.index.VanityIndex;
+import com.phonetoword.metrics.ConversionMetrics;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A service class to find word based equivalents of a set of phone numbers.
+ * <p>
+ * With a {@link ResultCache}, numbers that have been converted before are answered from the cache, and the words of
+ * a number are only cached when there are few enough of them; larger results are always generated lazily.
+ * <p>
+ * With {@link ConversionMetrics}, the work and latency of every number are recorded. A number read lazily is recorded
+ * once its words run out or its stream is closed.
+ * <p>
+ * With a {@link VanityIndex}, numbers of exactly the length of its blocks are looked up in the index, which saves
+ * walking their segmentations and building their strings. The index only holds the words that leave no digit as it
+ * is, so it only answers a number that has no other segmentation, which solving the number's graph tells; any other
+ * number, e.g. one with a 0 or 1 or that is not in the index, is converted as usual. Either way a number gets the same
+ * words as without the index. {@link #topK(String, int)} always searches.
  */
 public class NumberToWordConverter {
 
-    private final Dictionary dictionary;
+    private final Supplier<? extends Dictionary> dictionarySource;
+    private final ResultCache cache;
+    private final ConversionMetrics metrics;
+    private final VanityIndex index;
 
     /**
      * Initialise <code>NumberToWordConverter</code> instance with the dictionary to use.
@@ -30,7 +54,59 @@ public class NumberToWordConverter {
      * @param dictionary
      */
     public NumberToWordConverter(Dictionary dictionary) {
-        this.dictionary = dictionary;
+        this(dictionary, null);
+    }
+
+    /**
+     * Initialise <code>NumberToWordConverter</code> instance with the dictionary to use and a cache of results.
+     *
+     * @param dictionary
+     * @param cache cache of the words of recently converted numbers, or <code>null</code> to always convert
+     */
+    public NumberToWordConverter(Dictionary dictionary, ResultCache cache) {
+        this(() -> dictionary, cache);
+    }
+
+    /**
+     * Initialise <code>NumberToWordConverter</code> instance with a source of the current dictionary, e.g. a
+     * {@link com.phonetoword.dictionary.reader.ReloadableDictionary}. The dictionary is fetched once per number, so a
+     * number is always converted against a single dictionary even if it is swapped in the meantime.
+     *
+     * @param dictionarySource supplies the dictionary to convert each number with
+     * @param cache cache of the words of recently converted numbers, or <code>null</code> to always convert
+     */
+    public NumberToWordConverter(Supplier<? extends Dictionary> dictionarySource, ResultCache cache) {
+        this(dictionarySource, cache, null);
+    }
+
+    /**
+     * Initialise <code>NumberToWordConverter</code> instance with a source of the current dictionary, a cache of
+     * results and metrics to record every conversion in.
+     *
+     * @param dictionarySource supplies the dictionary to convert each number with
+     * @param cache cache of the words of recently converted numbers, or <code>null</code> to always convert
+     * @param metrics metrics to record conversions in, or <code>null</code> not to record anything
+     */
+    public NumberToWordConverter(Supplier<? extends Dictionary> dictionarySource, ResultCache cache,
+            ConversionMetrics metrics) {
+        this(dictionarySource, cache, metrics, null);
+    }
+
+    /**
+     * Initialise <code>NumberToWordConverter</code> instance with a source of the current dictionary, a cache of
+     * results, metrics and a precomputed index of the numbers of a fixed length.
+     *
+     * @param dictionarySource supplies the dictionary to convert each number with
+     * @param cache cache of the words of recently converted numbers, or <code>null</code> to always convert
+     * @param metrics metrics to record conversions in, or <code>null</code> not to record anything
+     * @param index index to look numbers in the indexed format up in, or <code>null</code> to convert every number
+     */
+    public NumberToWordConverter(Supplier<? extends Dictionary> dictionarySource, ResultCache cache,
+            ConversionMetrics metrics, VanityIndex index) {
+        this.dictionarySource = dictionarySource;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.index = index;
     }
 
     public Map<String, List<String>> process(Path path) throws IOException {
@@ -41,72 +117,304 @@ public class NumberToWordConverter {
 
     public Map<String, List<String>> process(Stream<String> lines) {
         final Map<String, List<String>> wordMap = new HashMap<>();
-        lines.map(NumberToWordConverter::keepOnlyDigits).filter(number -> !isNullOrEmpty(number))
-                .forEach(number -> wordMap.put(number, extractWords(number)));
+        process(lines, (number, words) -> wordMap.put(number, words.collect(Collectors.toList())));
         return wordMap;
     }
 
-    private List<String> extractWords(String number) {
-        final List<String> words = new ArrayList<>();
-        getWordsForNumber("", number, words);
-        return words;
+    /**
+     * Convert every number in a file, handing the words of each number to the sink as they are generated.
+     *
+     * @param path file with one number per line
+     * @param sink receives the words of each number
+     * @throws IOException
+     */
+    public void process(Path path, ResultSink sink) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            process(br.lines(), sink);
+        }
     }
 
-    private static String keepOnlyDigits(String word) {
-        return CharMatcher.DIGIT.retainFrom(word);
+    /**
+     * Convert every number in a stream, handing the words of each number to the sink as they are generated. No more
+     * than the words of a single segmentation are held in memory at a time.
+     *
+     * @param lines stream of numbers
+     * @param sink receives the words of each number
+     */
+    public void process(Stream<String> lines, ResultSink sink) {
+        lines.map(NumberToWordConverter::keepOnlyDigits).filter(number -> !isNullOrEmpty(number))
+                .forEach(number -> {
+                    try (Stream<String> words = convert(number)) {
+                        sink.accept(number, words);
+                    }
+                });
+    }
+
+    /**
+     * Convert every number in a stream, keeping at most <code>limit</code> words per number.
+     *
+     * @param lines stream of numbers
+     * @param limit maximum number of words handed to the sink for each number
+     * @param sink receives the words of each number
+     */
+    public void process(Stream<String> lines, long limit, ResultSink sink) {
+        process(lines, (number, words) -> sink.accept(number, words.limit(limit)));
+    }
+
+    /**
+     * Convert every number in a file within a budget per number, see
+     * {@link #process(Stream, SearchBudget, ResultSink)}.
+     *
+     * @param path file with one number per line
+     * @param budget limits on the work spent on each number
+     * @param sink receives the words of each number
+     * @throws IOException
+     */
+    public void process(Path path, SearchBudget budget, ResultSink sink) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            process(br.lines(), budget, sink);
+        }
+    }
+
+    /**
+     * Convert every number in a stream within a budget per number, handing the words of each number to the sink
+     * together with whether they were truncated. A number that runs out of budget does not affect the others.
+     *
+     * @param lines stream of numbers
+     * @param budget limits on the work spent on each number
+     * @param sink receives the words of each number
+     */
+    public void process(Stream<String> lines, SearchBudget budget, ResultSink sink) {
+        lines.map(NumberToWordConverter::keepOnlyDigits).filter(number -> !isNullOrEmpty(number)).forEach(number -> {
+            final Conversion conversion = convert(number, budget);
+            sink.accept(number, conversion.getWords().stream(), conversion.isTruncated());
+        });
+    }
+
+    /**
+     * Generate the words for a single number within a budget. At most {@link SearchBudget#getMaxResults()} words are
+     * kept, so the result is bounded however many words the number has.
+     *
+     * @param number phone number, punctuation is ignored
+     * @param budget limits on the work spent on the number
+     * @return the words found, in the same order as {@link #convert(String)}, and whether the budget ran out first
+     */
+    public Conversion convert(String number, SearchBudget budget) {
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final Conversion conversion = convertWithinBudget(keepOnlyDigits(number), budget);
+        if (metrics != null) {
+            metrics.recordNumber(start, conversion.getWords().size());
+            if (conversion.isTruncated()) {
+                metrics.recordTruncated();
+            }
+        }
+        return conversion;
+    }
+
+    /**
+     * Start suggesting words for a number as it is typed, see {@link SuggestionSession}. The session keeps the
+     * current dictionary until it is done with.
+     *
+     * @return a new session with no digits typed
+     */
+    public SuggestionSession newSession() {
+        return new SuggestionSession(dictionarySource.get());
     }
 
-    private void getWordsForNumber(String processed, String unprocessed, List<String> words) {
-        if (unprocessed.length() == 0) {
-            words.add(processed);
-            return;
+    /**
+     * Lazily generate the words for a single number. Segmentations are produced one at a time as the stream is
+     * consumed, so the stream can be cut short with <code>limit</code> or any short-circuiting operation.
+     *
+     * @param number phone number, punctuation is ignored
+     * @return ordered stream of the words for the number
+     */
+    public Stream<String> convert(String number) {
+        final Iterator<String> words = iterator(number);
+        final Stream<String> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(words,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+        return words instanceof MeteredIterator ? stream.onClose(((MeteredIterator) words)::finish) : stream;
+    }
+
+    /**
+     * Generate the words for a single number on a fork-join pool. A number with a large search tree is split into
+     * subtasks so that it uses every thread of the pool; small ones are converted on the calling thread.
+     *
+     * @param number phone number, punctuation is ignored
+     * @param pool pool to split the work over
+     * @return the words for the number, in the same order as {@link #convert(String)}
+     */
+    public List<String> convertInParallel(String number, ForkJoinPool pool) {
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final List<String> words = collectInParallel(number, pool);
+        if (metrics != null) {
+            metrics.recordNumber(start, words.size());
         }
+        return words;
+    }
 
-        matchAllPossibleWords(processed, unprocessed, words);
+    /**
+     * Find the best words for a single number, see {@link #topK(String, int, WordFrequencies)}.
+     *
+     * @param number phone number, punctuation is ignored
+     * @param k maximum number of words to return
+     * @return at most <code>k</code> words, best first
+     */
+    public List<String> topK(String number, int k) {
+        return topK(number, k, WordFrequencies.EMPTY);
+    }
 
-        considerSkippingOneDigit(processed, unprocessed, words);
+    /**
+     * Find the best words for a single number. Fewer digits left as they are rank first, then fewer and so longer
+     * words, then more common words. The search is best first and stops once it has the <code>k</code> best, so the
+     * words that would not make it are never generated, however many the number has.
+     *
+     * @param number phone number, punctuation is ignored
+     * @param k maximum number of words to return
+     * @param frequencies how common each word is
+     * @return at most <code>k</code> words, best first
+     */
+    public List<String> topK(String number, int k, WordFrequencies frequencies) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of words must be positive: " + k);
+        }
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final List<String> words = build(dictionarySource.get(), keepOnlyDigits(number)).best(k, frequencies);
+        if (metrics != null) {
+            metrics.recordNumber(start, words.size());
+        }
+        return words;
+    }
 
-        considerZeroAndOne(processed, unprocessed, words);
+    /**
+     * Lazily generate the words for a single number.
+     *
+     * @param number phone number, punctuation is ignored
+     * @return iterator over the words for the number
+     */
+    public Iterator<String> iterator(String number) {
+        if (metrics == null) {
+            return generate(number);
+        }
+        final long start = System.nanoTime();
+        return new MeteredIterator(generate(number), metrics, start);
+    }
 
+    private Iterator<String> generate(String number) {
+        final String digits = keepOnlyDigits(number);
+        final Dictionary dictionary = dictionarySource.get();
+        if (cache == null) {
+            final SegmentationGraph graph = build(dictionary, digits);
+            final List<String> indexed = indexed(digits, graph);
+            return indexed != null ? indexed.iterator() : graph.iterator();
+        }
+        final long version = dictionary.getVersion();
+        final List<String> cached = cached(dictionary, version, digits);
+        if (cached != null) {
+            return cached.iterator();
+        }
+        final SegmentationGraph graph = build(dictionary, digits);
+        final List<String> indexed = indexed(digits, graph);
+        if (indexed != null) {
+            return indexed.iterator();
+        }
+        if (!cache.accepts(graph.count())) {
+            // Too many words to keep, so stay lazy
+            return graph.iterator();
+        }
+        final List<String> words = ImmutableList.copyOf(graph.iterator());
+        cache.put(dictionary, version, digits, words);
+        return words.iterator();
     }
 
-    private void considerZeroAndOne(String processed, String unprocessed, List<String> words) {
-        final char currentChar = unprocessed.charAt(0);
-        // Zero and one never match a dictionary word
-        if (currentChar == '0' || currentChar == '1') {
-            getWordsForNumber(updateProcessed(processed, unprocessed.substring(0, 1)),
-                    updateUnProcessed(unprocessed, unprocessed.substring(0, 1)), words);
+    private List<String> collectInParallel(String number, ForkJoinPool pool) {
+        final String digits = keepOnlyDigits(number);
+        final Dictionary dictionary = dictionarySource.get();
+        final long version = dictionary.getVersion();
+        final List<String> cached = cached(dictionary, version, digits);
+        if (cached != null) {
+            return cached;
         }
+        final SegmentationGraph graph = build(dictionary, digits);
+        final List<String> indexed = indexed(digits, graph);
+        if (indexed != null) {
+            return indexed;
+        }
+        final List<String> words = graph.collect(pool);
+        if (cache == null || !cache.accepts(graph.count())) {
+            return words;
+        }
+        final List<String> cacheable = ImmutableList.copyOf(words);
+        cache.put(dictionary, version, digits, cacheable);
+        return cacheable;
     }
 
-    private void considerSkippingOneDigit(String processed, String unprocessed, List<String> words) {
-        // Allow consideration of a run of up to <i>one<i> number to be
-        // considered as an option
-        if (processed.length() > 0 && !isDigit(processed.charAt(processed.length() - 1)) || processed.length() == 0) {
-            getWordsForNumber(updateProcessed(processed, unprocessed.substring(0, 1)),
-                    updateUnProcessed(unprocessed, unprocessed.substring(0, 1)), words);
+    private Conversion convertWithinBudget(String digits, SearchBudget budget) {
+        final Dictionary dictionary = dictionarySource.get();
+        final long version = dictionary.getVersion();
+        final List<String> cached = cached(dictionary, version, digits);
+        if (cached != null) {
+            return withinBudget(digits, cached, budget);
+        }
+        final SegmentationGraph graph = SegmentationGraph.build(dictionary, digits, budget);
+        if (metrics != null) {
+            metrics.recordSearch(graph.stateCount(), graph.edgeCount(), graph.lookupCount());
         }
+        final List<String> indexed = indexed(digits, graph);
+        if (indexed != null) {
+            return withinBudget(digits, indexed, budget);
+        }
+        final Conversion conversion = graph.collectWithinBudget();
+        if (cache != null && !conversion.isTruncated() && cache.accepts(conversion.getWords().size())) {
+            final List<String> cacheable = ImmutableList.copyOf(conversion.getWords());
+            cache.put(dictionary, version, digits, cacheable);
+            return new Conversion(digits, cacheable, false);
+        }
+        return conversion;
+    }
+
+    private static Conversion withinBudget(String digits, List<String> words, SearchBudget budget) {
+        return words.size() <= budget.getMaxResults() ? new Conversion(digits, words, false)
+                : new Conversion(digits, words.subList(0, budget.getMaxResults()), true);
     }
 
-    private void matchAllPossibleWords(String processed, String unprocessed, List<String> words) {
-        // Check for words that start at the first number in the number part.
-        for (int i = 1; i <= dictionary.getMaxWordLength() && i <= unprocessed.length(); i++) {
-            final String number = unprocessed.substring(0, i);
-            for (final String word : dictionary.getWordsForNumber(number)) {
-                getWordsForNumber(updateProcessed(processed, word), updateUnProcessed(unprocessed, word), words);
+    /**
+     * @return the words of the number from the index, or <code>null</code> if the index does not hold every
+     *         segmentation of the solved graph, e.g. because some of them leave a digit as it is
+     */
+    private List<String> indexed(String digits, SegmentationGraph graph) {
+        final List<String> words = index == null ? null : index.lookup(digits);
+        return words != null && !words.isEmpty() && words.size() == graph.count() ? words : null;
+    }
+
+    private List<String> cached(Dictionary dictionary, long version, String digits) {
+        if (cache == null) {
+            return null;
+        }
+        final List<String> words = cache.get(dictionary, version, digits);
+        if (metrics != null) {
+            if (words == null) {
+                metrics.recordCacheMiss();
+            } else {
+                metrics.recordCacheHit();
             }
         }
+        return words;
     }
 
-    private String updateProcessed(String processed, String current) {
-        if (processed.length() == 0 || isDigit(processed.charAt(processed.length() - 1)) && isDigit(current.charAt(0))) {
-            return processed + current;
+    private SegmentationGraph build(Dictionary dictionary, String digits) {
+        final SegmentationGraph graph = SegmentationGraph.build(dictionary, digits);
+        if (metrics != null) {
+            metrics.recordSearch(graph.stateCount(), graph.edgeCount(), graph.lookupCount());
         }
-        return processed + "-" + current;
+        return graph;
     }
 
-    private String updateUnProcessed(String unprocessed, String current) {
-        return unprocessed.substring(current.length());
+    /**
+     * @param word phone number, possibly with punctuation or letters
+     * @return only the digits of the number
+     */
+    public static String keepOnlyDigits(String word) {
+        return CharMatcher.DIGIT.retainFrom(word);
     }
 
 }
@@ -0,0 +1,57 @@
+package com.phonetoword.convertor;
+
+import java.util.List;
+
+/**
+ * A vanity phrase checked against the dictionary by {@link ReverseConverter}.
+ */
+public final class PhraseCheck {
+
+    private final String phrase;
+    private final String number;
+    private final int wordCount;
+    private final List<String> unknownWords;
+
+    PhraseCheck(String phrase, String number, int wordCount, List<String> unknownWords) {
+        this.phrase = phrase;
+        this.number = number;
+        this.wordCount = wordCount;
+        this.unknownWords = unknownWords;
+    }
+
+    /**
+     * @return the phrase as it was passed
+     */
+    public String getPhrase() {
+        return phrase;
+    }
+
+    /**
+     * @return the number to dial for the phrase, its letters turned into digits and its digits kept
+     */
+    public String getNumber() {
+        return number;
+    }
+
+    /**
+     * @return number of words in the phrase, runs of letters separated by anything else
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return words of the phrase that are not in the dictionary, in upper case and in the order they appear
+     */
+    public List<String> getUnknownWords() {
+        return unknownWords;
+    }
+
+    /**
+     * @return whether the phrase has words and every one of them is in the dictionary
+     */
+    public boolean isValid() {
+        return wordCount > 0 && unknownWords.isEmpty();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.phonetoword.convertor;
+
+/**
+ * How segmentations of a number rank against each other: fewer digits left as they are first, then fewer and so
+ * longer words, then more common words.
+ * <p>
+ * The digits and words of a segmentation, or of part of one, are counted in a single <code>long</code> key with the
+ * digits in the high half. Keys of consecutive parts add up to the key of the whole, and comparing keys compares
+ * digits first and words second, however many words there are. Word frequencies only break ties between equal keys.
+ */
+final class Ranking {
+
+    /**
+     * Key of a single digit left as it is.
+     */
+    static final long DIGIT = 1L << Integer.SIZE;
+
+    /**
+     * Key of a single word.
+     */
+    static final long WORD = 1;
+
+    /**
+     * Key of something that cannot be spelled, above any real key.
+     */
+    static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private Ranking() {}
+
+    /**
+     * @param key key of the first segmentation
+     * @param weight sum of the frequency weights of its words
+     * @param otherKey key of the second segmentation
+     * @param otherWeight sum of the frequency weights of its words
+     * @return a negative number if the first ranks before the second, a positive one if after, 0 if they are equal
+     */
+    static int compare(long key, double weight, long otherKey, double otherWeight) {
+        final int byKey = Long.compare(key, otherKey);
+        return byKey != 0 ? byKey : Double.compare(otherWeight, weight);
+    }
+
+}
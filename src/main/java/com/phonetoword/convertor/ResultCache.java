@@ -0,0 +1,160 @@
+package com.phonetoword.convertor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import com.phonetoword.dictionary.Dictionary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache of the words of recently converted numbers, for inputs where the same numbers come up again and again.
+ * <p>
+ * The cache is bounded by weight: every number weighs one plus the number of its words, so the bound caps both the
+ * number of cached numbers and the total number of cached words. When it is full the least recently used numbers are
+ * evicted. Numbers whose words would take up more than a small share of the cache are never cached, so a single huge
+ * result cannot flush everything else; they are simply generated lazily every time.
+ * <p>
+ * Results are only valid for the dictionary they were generated with, so they are keyed by the dictionary, the
+ * {@link Dictionary#getVersion() version} it had and the digits of the number. Looking a number up with another
+ * dictionary or after the dictionary was updated in place is a miss, and counted as one in the {@link #stats()}.
+ * The whole cache is cleared the first time it is used with a new dictionary, while results of older versions of the
+ * same dictionary are no longer looked up and are the first to be evicted. So it is safe to keep a cache across
+ * dictionary swaps and updates. It is safe to use from any number of threads.
+ */
+public class ResultCache {
+
+    private static final int CONCURRENCY_LEVEL = 4;
+    /** Largest share of the cache a single number may take up, as a fraction of the maximum weight. */
+    private static final int MAX_ENTRY_SHARE = 16;
+
+    private final Cache<Key, List<String>> cache;
+    private final long maxEntryWords;
+    private final AtomicReference<Dictionary> dictionary = new AtomicReference<>();
+
+    /**
+     * @param maximumWords maximum total weight of the cache, one per number plus one per word
+     */
+    public ResultCache(long maximumWords) {
+        this(maximumWords, 0);
+    }
+
+    /**
+     * @param maximumWords maximum total weight of the cache, one per number plus one per word
+     * @param expireAfterWriteMillis time after which a result is evicted even if it is still used, or 0 to keep it
+     *        until it is the least recently used
+     */
+    public ResultCache(long maximumWords, long expireAfterWriteMillis) {
+        if (maximumWords < 1) {
+            throw new IllegalArgumentException("Maximum number of cached words must be positive: " + maximumWords);
+        }
+        if (expireAfterWriteMillis < 0) {
+            throw new IllegalArgumentException("Expiry must not be negative: " + expireAfterWriteMillis);
+        }
+        final CacheBuilder<Key, List<String>> builder = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL)
+                .maximumWeight(maximumWords).weigher((Key key, List<String> words) -> 1 + words.size()).recordStats();
+        if (expireAfterWriteMillis > 0) {
+            builder.expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS);
+        }
+        this.cache = builder.build();
+        this.maxEntryWords = maximumWords / MAX_ENTRY_SHARE;
+    }
+
+    /**
+     * @param dictionary dictionary the words are wanted for
+     * @param version current version of the dictionary
+     * @param number number made up of digits only
+     * @return cached words of the number, or <code>null</code> if they are not cached for this version of the
+     *         dictionary
+     */
+    List<String> get(Dictionary dictionary, long version, String number) {
+        useDictionary(dictionary);
+        return cache.getIfPresent(new Key(dictionary, version, number));
+    }
+
+    /**
+     * @param count number of words of a number
+     * @return whether the words of the number should be cached
+     */
+    boolean accepts(long count) {
+        return count <= maxEntryWords;
+    }
+
+    /**
+     * @param dictionary dictionary the words were generated with
+     * @param version version of the dictionary before the words were generated
+     * @param number number made up of digits only
+     * @param words every word of the number
+     */
+    void put(Dictionary dictionary, long version, String number, List<String> words) {
+        if (this.dictionary.get() == dictionary) {
+            cache.put(new Key(dictionary, version, number), words);
+        }
+    }
+
+    /**
+     * Drop every cached result.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return number of cached numbers
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return hits, misses and evictions since the cache was created
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private void useDictionary(Dictionary current) {
+        final Dictionary previous = dictionary.getAndSet(current);
+        if (previous != null && previous != current) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * A number in one version of a dictionary. Dictionaries are told apart by identity.
+     */
+    private static final class Key {
+
+        private final Dictionary dictionary;
+        private final long version;
+        private final String number;
+
+        Key(Dictionary dictionary, long version, String number) {
+            this.dictionary = dictionary;
+            this.version = version;
+            this.number = number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return dictionary == other.dictionary && version == other.version && number.equals(other.number);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * System.identityHashCode(dictionary) + Long.hashCode(version)) * 31 + number.hashCode();
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.phonetoword.convertor;
+
+import java.util.stream.Stream;
+
+/**
+ * Receives the words of each number as they are generated by {@link NumberToWordConverter}.
+ */
+@FunctionalInterface
+public interface ResultSink {
+
+    /**
+     * Called once for every number, in input order.
+     *
+     * @param number the number, reduced to its digits
+     * @param words lazy stream of the words for the number. It is only valid for the duration of the call and may be
+     *        closed early, e.g. with <code>limit</code> or <code>findFirst</code>, to stop the search.
+     */
+    void accept(String number, Stream<String> words);
+
+    /**
+     * Called instead of {@link #accept(String, Stream)} for numbers converted within a {@link SearchBudget}. By
+     * default the flag is dropped.
+     *
+     * @param number the number, reduced to its digits
+     * @param words the words found for the number, valid for the duration of the call
+     * @param truncated whether the budget ran out, so that the number may have more words
+     */
+    default void accept(String number, Stream<String> words, boolean truncated) {
+        accept(number, words);
+    }
+
+}
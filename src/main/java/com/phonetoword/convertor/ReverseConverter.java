@@ -0,0 +1,158 @@
+package com.phonetoword.convertor;
+
+import com.google.common.collect.ImmutableList;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Turns vanity phrases back into numbers and checks their words against the dictionary, e.g. to validate a list of
+ * candidate phrases.
+ * <p>
+ * A phrase is made of words, runs of letters in any case, separated by anything else. Letters are mapped through the
+ * {@link Keypad} tables and digits are kept, so <code>1-800-Call-Me</code> is <code>1800225563</code>. Each word is
+ * looked up by walking the digit trie of the dictionary and comparing the words at its node character by character,
+ * so checking a phrase only allocates its number and the list of unknown words. Checks are independent of each
+ * other, and a stream of phrases may be checked in parallel.
+ */
+public class ReverseConverter {
+
+    private final Supplier<? extends Dictionary> dictionarySource;
+    private final Keypad keypad;
+
+    /**
+     * @param dictionary dictionary to check the words against
+     */
+    public ReverseConverter(Dictionary dictionary) {
+        this(() -> dictionary);
+    }
+
+    /**
+     * @param dictionarySource supplies the dictionary to check each phrase against
+     */
+    public ReverseConverter(Supplier<? extends Dictionary> dictionarySource) {
+        this(dictionarySource, Keypad.STANDARD);
+    }
+
+    /**
+     * @param dictionarySource supplies the dictionary to check each phrase against
+     * @param keypad layout the words of the dictionary were loaded with
+     */
+    public ReverseConverter(Supplier<? extends Dictionary> dictionarySource, Keypad keypad) {
+        this.dictionarySource = dictionarySource;
+        this.keypad = keypad;
+    }
+
+    /**
+     * @param phrase a vanity phrase, e.g. <code>1-800-FLOWERS</code>
+     * @return the number of the phrase, its letters turned into digits and its digits kept
+     */
+    public String toNumber(String phrase) {
+        final char[] number = new char[phrase.length()];
+        int length = 0;
+        for (int i = 0; i < phrase.length(); i++) {
+            final char c = phrase.charAt(i);
+            final char digit = keypad.digit(c);
+            if (digit != Keypad.NO_DIGIT) {
+                number[length++] = digit;
+            } else if (c >= '0' && c <= '9') {
+                number[length++] = c;
+            }
+        }
+        return new String(number, 0, length);
+    }
+
+    /**
+     * Check a phrase against the dictionary.
+     *
+     * @param phrase a vanity phrase, e.g. <code>1-800-FLOWERS</code>
+     * @return its number and the words that are not in the dictionary
+     */
+    public PhraseCheck check(String phrase) {
+        final Dictionary dictionary = dictionarySource.get();
+        final char[] number = new char[phrase.length()];
+        final char[] word = new char[dictionary.getMaxWordLength()];
+        ImmutableList.Builder<String> unknownWords = null;
+        int length = 0;
+        int wordCount = 0;
+        int wordStart = -1;
+        for (int i = 0; i <= phrase.length(); i++) {
+            final char c = i < phrase.length() ? phrase.charAt(i) : ' ';
+            final char digit = keypad.digit(c);
+            if (digit != Keypad.NO_DIGIT) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+                number[length++] = digit;
+                continue;
+            }
+            if (wordStart >= 0) {
+                wordCount++;
+                if (!isWord(dictionary, phrase, wordStart, i, number, length - (i - wordStart), word)) {
+                    if (unknownWords == null) {
+                        unknownWords = ImmutableList.builder();
+                    }
+                    unknownWords.add(phrase.substring(wordStart, i).toUpperCase(Locale.ROOT));
+                }
+                wordStart = -1;
+            }
+            if (c >= '0' && c <= '9') {
+                number[length++] = c;
+            }
+        }
+        return new PhraseCheck(phrase, new String(number, 0, length), wordCount,
+                unknownWords == null ? ImmutableList.of() : unknownWords.build());
+    }
+
+    /**
+     * Lazily check a stream of phrases, see {@link #check(String)}. Blank lines are skipped. The stream may be
+     * parallel.
+     *
+     * @param phrases stream of phrases, one per element
+     * @return the checks, in the order of the phrases
+     */
+    public Stream<PhraseCheck> check(Stream<String> phrases) {
+        return phrases.map(String::trim).filter(phrase -> !phrase.isEmpty()).map(this::check);
+    }
+
+    /**
+     * @return whether the letters of the phrase from start to end are a word of the dictionary
+     */
+    private static boolean isWord(Dictionary dictionary, String phrase, int start, int end, char[] digits,
+            int digitStart, char[] word) {
+        final int length = end - start;
+        if (length > word.length) {
+            return false;
+        }
+        int node = Dictionary.ROOT;
+        for (int i = 0; i < length && node != Dictionary.NO_NODE; i++) {
+            node = dictionary.next(node, digits[digitStart + i]);
+        }
+        if (node == Dictionary.NO_NODE) {
+            return false;
+        }
+        for (int w = 0; w < dictionary.getWordCount(node); w++) {
+            if (dictionary.getWordChars(node, w, word, 0) == length && sameLetters(phrase, start, word, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dictionary words are upper case, and the phrase may be in either.
+     */
+    private static boolean sameLetters(String phrase, int start, char[] word, int length) {
+        for (int i = 0; i < length; i++) {
+            if (Character.toUpperCase(phrase.charAt(start + i)) != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
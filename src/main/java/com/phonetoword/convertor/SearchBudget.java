@@ -0,0 +1,69 @@
+package com.phonetoword.convertor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on the work spent converting a single number, so that a pathological number, e.g. a long run of the digits 2
+ * to 9, cannot hold up a batch or exhaust memory. A number that runs out of budget keeps the words found so far and
+ * is marked as truncated; the budget of every number starts afresh.
+ */
+public final class SearchBudget {
+
+    /** No limits at all. */
+    public static final SearchBudget UNLIMITED =
+            new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final long maxNodes;
+    private final long maxNanos;
+    private final int maxResults;
+    private final int maxDepth;
+
+    /**
+     * @param maxNodes maximum number of search steps: tokens placed while walking the segmentations of the number.
+     *        Solving the number first takes a number of steps bounded by its length and is not counted.
+     * @param maxMillis maximum wall time, or <code>Long.MAX_VALUE</code> for no limit
+     * @param maxResults maximum number of words
+     * @param maxDepth maximum number of tokens, words or raw digits, in a single word
+     * @throws IllegalArgumentException if any limit is not positive
+     */
+    public SearchBudget(long maxNodes, long maxMillis, int maxResults, int maxDepth) {
+        if (maxNodes < 1 || maxMillis < 1 || maxResults < 1 || maxDepth < 1) {
+            throw new IllegalArgumentException("Search budget limits must be positive: nodes " + maxNodes + ", millis "
+                    + maxMillis + ", results " + maxResults + ", depth " + maxDepth);
+        }
+        this.maxNodes = maxNodes;
+        this.maxNanos = maxMillis == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        this.maxResults = maxResults;
+        this.maxDepth = maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return maximum wall time in nanoseconds, <code>Long.MAX_VALUE</code> if there is no limit
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    boolean hasTimeLimit() {
+        return maxNanos != Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchBudget[nodes=" + maxNodes + ", nanos=" + maxNanos + ", results=" + maxResults + ", depth="
+                + maxDepth + "]";
+    }
+
+}
@@ -0,0 +1,586 @@
+package com.phonetoword.convertor;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.WordFrequencies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * All segmentations of a single number, stored as a shared DAG of suffix results.
+ * <p>
+ * A state is a position in the number together with whether the last token placed before it was a raw digit, which
+ * is all the conversion rules look at. Every state is solved once, from the end of the number backwards, and only
+ * keeps the edges that lead to a complete segmentation. The full strings are built when the graph is walked.
+ * <p>
+ * Edges live in flat <code>int</code> arrays and the walk pushes and pops tokens on a single <code>char[]</code> path,
+ * so the only object created per segmentation is its String.
+ * <p>
+ * A graph can be built within a {@link SearchBudget}. Tokens placed during the walk count as search nodes, and once the
+ * nodes or the time run out a walk stops where it is, keeping the segmentations it has completed. Solving is not
+ * charged to the nodes: it takes at most one step through the dictionary per digit and letter of the longest word,
+ * however many segmentations there are, and a walk cannot complete a segmentation before the number is solved. Only
+ * running out of time stops solving, which leaves the number without segmentations. A walk never places more tokens
+ * than the maximum depth.
+ */
+final class SegmentationGraph {
+
+    private static final int NO_EDGES = -1;
+    private static final int RAW_DIGIT = -1;
+    private static final long SEQUENTIAL_THRESHOLD = 10_000;
+    private static final int MAX_FORK_DEPTH = 8;
+    private static final int MAX_CAPACITY = 1 << 20;
+    /** The clock is read once every this many search nodes plus one. */
+    private static final long TIME_CHECK_MASK = 1023;
+
+    private final Dictionary dictionary;
+    private final String number;
+    private final SearchBudget budget;
+    private final long startNanos;
+    private final int[] firstEdge;
+    private final int[] lastEdge;
+    private final long[] counts;
+    private int[] edgeTargets;
+    private int[] edgeNodes;
+    private int[] edgeWords;
+    private int edgeCount;
+    /** Steps taken through the dictionary while solving, for metrics. */
+    private int lookups;
+    /** Whether solving ran out of time, in which case the number has no segmentations. */
+    private boolean abandoned;
+
+    private SegmentationGraph(Dictionary dictionary, String number, SearchBudget budget) {
+        this.dictionary = dictionary;
+        this.number = number;
+        this.budget = budget;
+        this.startNanos = budget.hasTimeLimit() ? System.nanoTime() : 0;
+        firstEdge = new int[(number.length() + 1) * 2];
+        lastEdge = new int[firstEdge.length];
+        counts = new long[firstEdge.length];
+        Arrays.fill(firstEdge, NO_EDGES);
+        counts[state(number.length(), false)] = 1;
+        counts[state(number.length(), true)] = 1;
+        edgeTargets = new int[firstEdge.length * 2];
+        edgeNodes = new int[edgeTargets.length];
+        edgeWords = new int[edgeTargets.length];
+    }
+
+    /**
+     * Solve every suffix of a number against a dictionary.
+     *
+     * @param dictionary dictionary to take words from
+     * @param number number made up of digits only
+     * @return graph of all segmentations of the number
+     */
+    static SegmentationGraph build(Dictionary dictionary, String number) {
+        return build(dictionary, number, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Solve every suffix of a number against a dictionary, within a budget.
+     *
+     * @param dictionary dictionary to take words from
+     * @param number number made up of digits only
+     * @param budget limits on the work spent, from now on: the time both solving and walking the graph, the nodes
+     *        walking it
+     * @return graph of all segmentations of the number, or of none if the time ran out while solving
+     */
+    static SegmentationGraph build(Dictionary dictionary, String number, SearchBudget budget) {
+        final SegmentationGraph graph = new SegmentationGraph(dictionary, number, budget);
+        for (int position = number.length() - 1; position >= 0; position--) {
+            graph.solve(position, false);
+            graph.solve(position, true);
+            if (graph.isOutOfTime()) {
+                graph.abandoned = true;
+                break;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Walk the graph lazily. Each call to <code>next()</code> resumes the walk where the previous one stopped, so
+     * only the current path is held in memory however many segmentations the number has.
+     *
+     * @return iterator over every segmentation of the number, in the order the rules consider them
+     */
+    Iterator<String> iterator() {
+        return new WordIterator(state(0, false), "");
+    }
+
+    /**
+     * Collect segmentations in the order of {@link #iterator()}, until they or the budget run out.
+     *
+     * @return the segmentations found, truncated if the budget ran out before all of them were
+     */
+    Conversion collectWithinBudget() {
+        final int start = state(0, false);
+        final WordIterator words = new WordIterator(start, "");
+        final List<String> found = new ArrayList<>(Math.min(capacity(start), budget.getMaxResults()));
+        while (found.size() < budget.getMaxResults() && words.hasNext()) {
+            found.add(words.next());
+        }
+        return new Conversion(number, found, abandoned || words.truncated || words.hasNext());
+    }
+
+    /**
+     * @return number of segmentations of the number, or <code>Long.MAX_VALUE</code> if there are more than that
+     */
+    long count() {
+        return counts[state(0, false)];
+    }
+
+    /**
+     * @return number of states solved, two per digit
+     */
+    int stateCount() {
+        return number.length() * 2;
+    }
+
+    /**
+     * @return number of edges, one per token that leads to a complete segmentation
+     */
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return number of steps taken through the dictionary to build the graph
+     */
+    int lookupCount() {
+        return lookups;
+    }
+
+    /**
+     * Collect every segmentation on a fork-join pool. The walk forks one subtask per edge while the segmentations
+     * below a state are plentiful, and falls back to the sequential walk below that, so a single number with a huge
+     * search tree is spread over every thread of the pool. The result is in the same order as {@link #iterator()}.
+     *
+     * @param pool pool to run the subtasks on
+     * @return every segmentation of the number
+     */
+    List<String> collect(ForkJoinPool pool) {
+        final int start = state(0, false);
+        if (counts[start] < SEQUENTIAL_THRESHOLD) {
+            return collect(start, "");
+        }
+        final CollectTask task = new CollectTask(start, "", 0);
+        // Already on one of the pool's threads, e.g. within a batch, so fork from here rather than queue and block
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    /**
+     * Find the best segmentations with a best-first search, without walking the rest of the graph.
+     * <p>
+     * Segmentations rank as {@link Ranking} defines. The best rank from every state to the end is solved backwards
+     * over the graph first, and the search orders partial segmentations by their rank so far combined with that
+     * remainder. The remainder is exact, so each segmentation the search completes is the best one left and it stops
+     * as soon as it has <code>k</code>. Segmentations of equal rank come out in the order of {@link #iterator()}.
+     *
+     * @param k maximum number of segmentations to return
+     * @param frequencies weights of the words
+     * @return at most <code>k</code> segmentations, best first
+     */
+    List<String> best(int k, WordFrequencies frequencies) {
+        final long[] edgeKeys = new long[edgeCount];
+        final double[] edgeWeights = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            final boolean rawDigit = edgeNodes[edge] == RAW_DIGIT;
+            edgeKeys[edge] = rawDigit ? Ranking.DIGIT : Ranking.WORD;
+            edgeWeights[edge] =
+                    rawDigit ? 0 : frequencies.getWeight(dictionary.getWord(edgeNodes[edge], edgeWords[edge]));
+        }
+        // Targets always lie at a later position, so solving states from the end backwards sees them first
+        final long[] remainingKeys = new long[counts.length];
+        final double[] remainingWeights = new double[counts.length];
+        for (int state = state(number.length(), false) - 1; state >= 0; state--) {
+            long bestKey = Ranking.UNREACHABLE;
+            double bestWeight = 0;
+            for (int edge = firstEdge[state]; edge < lastEdge[state]; edge++) {
+                final int target = edgeTargets[edge];
+                final long key = edgeKeys[edge] + remainingKeys[target];
+                final double weight = edgeWeights[edge] + remainingWeights[target];
+                if (Ranking.compare(key, weight, bestKey, bestWeight) < 0) {
+                    bestKey = key;
+                    bestWeight = weight;
+                }
+            }
+            remainingKeys[state] = bestKey;
+            remainingWeights[state] = bestWeight;
+        }
+
+        final List<String> words = new ArrayList<>(Math.min(k, capacity(state(0, false))));
+        final int start = state(0, false);
+        if (!isViable(start)) {
+            return words;
+        }
+        final PriorityQueue<Partial> queue = new PriorityQueue<>();
+        queue.add(new Partial(null, NO_EDGES, start, 0, 0, remainingKeys[start], remainingWeights[start]));
+        while (words.size() < k && !queue.isEmpty()) {
+            final Partial partial = queue.poll();
+            if (position(partial.state) == number.length()) {
+                words.add(path(partial));
+                continue;
+            }
+            for (int edge = firstEdge[partial.state]; edge < lastEdge[partial.state]; edge++) {
+                final int target = edgeTargets[edge];
+                final long key = partial.key + edgeKeys[edge];
+                final double weight = partial.weight + edgeWeights[edge];
+                queue.add(new Partial(partial, edge, target, key, weight, key + remainingKeys[target],
+                        weight + remainingWeights[target]));
+            }
+        }
+        return words;
+    }
+
+    private String path(Partial end) {
+        int tokens = 0;
+        for (Partial partial = end; partial.parent != null; partial = partial.parent) {
+            tokens++;
+        }
+        final int[] edges = new int[tokens];
+        final int[] states = new int[tokens];
+        for (Partial partial = end; partial.parent != null; partial = partial.parent) {
+            tokens--;
+            edges[tokens] = partial.edge;
+            states[tokens] = partial.parent.state;
+        }
+        final char[] path = new char[maxPathLength()];
+        int length = 0;
+        for (int i = 0; i < edges.length; i++) {
+            length = appendToken(path, length, states[i], edges[i]);
+        }
+        return new String(path, 0, length);
+    }
+
+    private List<String> collect(int start, String prefix) {
+        final List<String> words = new ArrayList<>(capacity(start));
+        new WordIterator(start, prefix).forEachRemaining(words::add);
+        return words;
+    }
+
+    private int capacity(int state) {
+        return (int) Math.min(counts[state], MAX_CAPACITY);
+    }
+
+    private void solve(int position, boolean afterDigit) {
+        final int state = state(position, afterDigit);
+        firstEdge[state] = edgeCount;
+
+        matchAllPossibleWords(position);
+
+        considerSkippingOneDigit(position, afterDigit);
+
+        considerZeroAndOne(position);
+
+        lastEdge[state] = edgeCount;
+
+        long count = 0;
+        for (int edge = firstEdge[state]; edge < lastEdge[state]; edge++) {
+            final long below = counts[edgeTargets[edge]];
+            count = Long.MAX_VALUE - count < below ? Long.MAX_VALUE : count + below;
+        }
+        counts[state] = count;
+    }
+
+    private void matchAllPossibleWords(int position) {
+        int node = Dictionary.ROOT;
+        for (int i = position; i < number.length(); i++) {
+            node = dictionary.next(node, number.charAt(i));
+            lookups++;
+            if (node == Dictionary.NO_NODE) {
+                break;
+            }
+            final int target = state(i + 1, false);
+            if (isViable(target)) {
+                for (int w = 0; w < dictionary.getWordCount(node); w++) {
+                    addEdge(target, node, w);
+                }
+            }
+        }
+    }
+
+    private void considerSkippingOneDigit(int position, boolean afterDigit) {
+        // Allow consideration of a run of up to <i>one<i> number to be considered as an option
+        if (!afterDigit) {
+            addDigitEdge(position);
+        }
+    }
+
+    private void considerZeroAndOne(int position) {
+        final char currentChar = number.charAt(position);
+        // Zero and one never match a dictionary word
+        if (currentChar == '0' || currentChar == '1') {
+            addDigitEdge(position);
+        }
+    }
+
+    private void addDigitEdge(int position) {
+        final int target = state(position + 1, true);
+        if (isViable(target)) {
+            addEdge(target, RAW_DIGIT, 0);
+        }
+    }
+
+    private void addEdge(int target, int node, int word) {
+        if (edgeCount == edgeTargets.length) {
+            edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+            edgeNodes = Arrays.copyOf(edgeNodes, edgeCount * 2);
+            edgeWords = Arrays.copyOf(edgeWords, edgeCount * 2);
+        }
+        edgeTargets[edgeCount] = target;
+        edgeNodes[edgeCount] = node;
+        edgeWords[edgeCount] = word;
+        edgeCount++;
+    }
+
+    /**
+     * Append the token of an edge to a path, preceded by a separator unless it continues a run of raw digits.
+     *
+     * @param path path buffer, with room for the token
+     * @param length length of the path so far
+     * @param state state the edge leaves from
+     * @param edge the edge
+     * @return length of the path with the token
+     */
+    private int appendToken(char[] path, int length, int state, int edge) {
+        final boolean rawDigit = edgeNodes[edge] == RAW_DIGIT;
+        int end = length;
+        if (end > 0 && !(afterDigit(state) && rawDigit)) {
+            path[end++] = '-';
+        }
+        if (rawDigit) {
+            path[end++] = number.charAt(position(state));
+            return end;
+        }
+        return end + dictionary.getWordChars(edgeNodes[edge], edgeWords[edge], path, end);
+    }
+
+    /**
+     * Every token takes one character per digit and is preceded by at most one separator.
+     */
+    private int maxPathLength() {
+        return number.length() * 2;
+    }
+
+    /**
+     * @param nodes search nodes so far
+     * @param checkTime whether to read the clock this time
+     * @return whether the budget has run out
+     */
+    private boolean isSpent(long nodes, boolean checkTime) {
+        return nodes > budget.getMaxNodes() || checkTime && isOutOfTime();
+    }
+
+    private boolean isOutOfTime() {
+        return budget.hasTimeLimit() && System.nanoTime() - startNanos > budget.getMaxNanos();
+    }
+
+    private boolean isViable(int state) {
+        return position(state) == number.length() || firstEdge[state] != NO_EDGES && firstEdge[state] < lastEdge[state];
+    }
+
+    /**
+     * Depth first walk of the graph with an explicit stack of states, the next edge to follow from each of them and
+     * the length of the path on entry.
+     */
+    private final class WordIterator implements Iterator<String> {
+
+        private final int[] states = new int[number.length() + 1];
+        private final int[] edges = new int[number.length() + 1];
+        private final int[] lengths = new int[number.length() + 1];
+        private final char[] path;
+        private int length;
+        private int depth = -1;
+        private String next;
+        private long nodes;
+        /** Whether the walk skipped or stopped short of segmentations because of the budget. */
+        private boolean truncated;
+
+        WordIterator(int start, String prefix) {
+            path = new char[prefix.length() + maxPathLength()];
+            prefix.getChars(0, prefix.length(), path, 0);
+            length = prefix.length();
+            if (position(start) == number.length()) {
+                next = prefix;
+            } else if (isViable(start)) {
+                push(start);
+                next = advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final String current = next;
+            next = advance();
+            return current;
+        }
+
+        private String advance() {
+            while (depth >= 0) {
+                final int state = states[depth];
+                final int edge = edges[depth];
+                if (edge == lastEdge[state]) {
+                    depth--;
+                    continue;
+                }
+                edges[depth] = edge + 1;
+                nodes++;
+                if (isSpent(nodes, (nodes & TIME_CHECK_MASK) == 0)) {
+                    truncated = true;
+                    depth = -1;
+                    return null;
+                }
+
+                length = appendToken(path, lengths[depth], state, edge);
+
+                final int target = edgeTargets[edge];
+                if (position(target) == number.length()) {
+                    return new String(path, 0, length);
+                }
+                if (depth + 1 >= budget.getMaxDepth()) {
+                    // Every token placed so far plus at least one more would be too deep
+                    truncated = true;
+                    continue;
+                }
+                push(target);
+            }
+            return null;
+        }
+
+        private void push(int state) {
+            depth++;
+            states[depth] = state;
+            edges[depth] = firstEdge[state];
+            lengths[depth] = length;
+        }
+
+    }
+
+    /**
+     * Collects the segmentations below a state, forking one subtask per edge until the subtrees get small.
+     */
+    private final class CollectTask extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int state;
+        private final String prefix;
+        private final int depth;
+
+        CollectTask(int state, String prefix, int depth) {
+            this.state = state;
+            this.prefix = prefix;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (counts[state] < SEQUENTIAL_THRESHOLD || depth == MAX_FORK_DEPTH) {
+                return collect(state, prefix);
+            }
+
+            final List<CollectTask> subtasks = new ArrayList<>(lastEdge[state] - firstEdge[state]);
+            final char[] path = new char[prefix.length() + maxPathLength()];
+            prefix.getChars(0, prefix.length(), path, 0);
+            for (int edge = firstEdge[state]; edge < lastEdge[state]; edge++) {
+                final int length = appendToken(path, prefix.length(), state, edge);
+                subtasks.add(new CollectTask(edgeTargets[edge], new String(path, 0, length), depth + 1));
+            }
+            invokeAll(subtasks);
+
+            final List<String> words = new ArrayList<>(capacity(state));
+            for (final CollectTask subtask : subtasks) {
+                words.addAll(subtask.join());
+            }
+            return words;
+        }
+
+    }
+
+    /**
+     * A segmentation in progress during the best-first search, linked back to the one it extends.
+     */
+    private static final class Partial implements Comparable<Partial> {
+
+        private final Partial parent;
+        private final int edge;
+        private final int state;
+        private final int depth;
+        private final long key;
+        private final double weight;
+        private final long estimateKey;
+        private final double estimateWeight;
+
+        Partial(Partial parent, int edge, int state, long key, double weight, long estimateKey,
+                double estimateWeight) {
+            this.parent = parent;
+            this.edge = edge;
+            this.state = state;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.key = key;
+            this.weight = weight;
+            this.estimateKey = estimateKey;
+            this.estimateWeight = estimateWeight;
+        }
+
+        /**
+         * Best estimate first. Among equal ones, the first in the order of {@link SegmentationGraph#iterator()},
+         * which is decided by the edges the two took where they part ways.
+         */
+        @Override
+        public int compareTo(Partial other) {
+            final int byEstimate =
+                    Ranking.compare(estimateKey, estimateWeight, other.estimateKey, other.estimateWeight);
+            if (byEstimate != 0 || this == other) {
+                return byEstimate;
+            }
+            Partial left = this;
+            Partial right = other;
+            while (left.depth > right.depth) {
+                left = left.parent;
+            }
+            while (right.depth > left.depth) {
+                right = right.parent;
+            }
+            if (left == right) {
+                // One extends the other, which cannot happen in the queue as a partial is removed before it is extended
+                return Integer.compare(depth, other.depth);
+            }
+            while (left.parent != right.parent) {
+                left = left.parent;
+                right = right.parent;
+            }
+            return Integer.compare(left.edge, right.edge);
+        }
+
+    }
+
+    private static int state(int position, boolean afterDigit) {
+        return position * 2 + (afterDigit ? 1 : 0);
+    }
+
+    private static int position(int state) {
+        return state / 2;
+    }
+
+    private static boolean afterDigit(int state) {
+        return (state & 1) == 1;
+    }
+
+}
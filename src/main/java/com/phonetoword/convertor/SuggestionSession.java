@@ -0,0 +1,275 @@
+package com.phonetoword.convertor;
+
+import com.phonetoword.dictionary.Dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Suggests words for a number while it is being typed, one digit at a time.
+ * <p>
+ * The session keeps its search state between keystrokes. Its frontier holds a cursor for every position a word can
+ * start at and still be on its way through the dictionary trie, so typing a digit only moves each cursor one step
+ * down the trie instead of searching the number again, and deleting a digit drops the cursors it added. Alongside, the
+ * best way to spell each prefix of the number is kept under the same rules as the converter: a single digit may be
+ * left as it is between words, and zero and one always are, and spellings rank as {@link Ranking} defines, without
+ * word frequencies.
+ * <p>
+ * Suggestions spell the digits typed so far, the last word finishing them: the best spelling of the digits before the
+ * word, then every dictionary word whose number starts with the remaining digits, shortest completions first. The
+ * longest last words are suggested first, e.g. <code>CALL</code> before <code>A-ALL</code>.
+ * <p>
+ * A session is meant for a single user and is not thread safe. It only reads the dictionary, so any number of sessions
+ * can share one.
+ */
+public final class SuggestionSession {
+
+    private static final int RAW_DIGIT = -1;
+    private static final int NO_STATE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Dictionary dictionary;
+    private final StringBuilder digits = new StringBuilder();
+    /**
+     * Best spelling of each prefix by state: the length of the prefix and whether its last token is a digit left as it
+     * is. Each state keeps its {@link Ranking} key, the state before its last token and the trie node of that token's
+     * word.
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] previousStates = new int[INITIAL_CAPACITY];
+    private int[] tokenNodes = new int[INITIAL_CAPACITY];
+    /**
+     * Cursors of the frontier after each number of digits, those after <code>n</code> digits from
+     * <code>frontierEnds[n - 1]</code> to <code>frontierEnds[n]</code>. Each is the start of a word and its trie node.
+     */
+    private int[] frontierEnds = new int[INITIAL_CAPACITY];
+    private int[] cursorStarts = new int[INITIAL_CAPACITY];
+    private int[] cursorNodes = new int[INITIAL_CAPACITY];
+
+    /**
+     * @param dictionary dictionary to suggest words from, for the whole session
+     */
+    public SuggestionSession(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        clear();
+    }
+
+    /**
+     * @return the digits typed so far
+     */
+    public String getDigits() {
+        return digits.toString();
+    }
+
+    /**
+     * Type a digit.
+     *
+     * @param digit the digit
+     * @throws IllegalArgumentException if the character is not a digit
+     */
+    public void append(char digit) {
+        if (digit < '0' || digit > '9') {
+            throw new IllegalArgumentException("Not a digit: " + digit);
+        }
+        final int length = digits.length();
+        digits.append(digit);
+        ensureCapacity(length + 1);
+
+        final int afterDigit = state(length + 1, true);
+        final int afterWord = state(length + 1, false);
+        keys[afterDigit] = Ranking.UNREACHABLE;
+        keys[afterWord] = Ranking.UNREACHABLE;
+        // Any digit may follow a word, zero and one may follow another digit too
+        leaveDigit(state(length, false), afterDigit);
+        if (digit == '0' || digit == '1') {
+            leaveDigit(state(length, true), afterDigit);
+        }
+
+        // Move the cursors that can take the digit one step down the trie, and start a word here if one can
+        int cursors = frontierEnds[length];
+        for (int cursor = length == 0 ? 0 : frontierEnds[length - 1]; cursor < frontierEnds[length]; cursor++) {
+            cursors = addCursor(cursors, cursorStarts[cursor], dictionary.next(cursorNodes[cursor], digit));
+        }
+        if (best(length) != NO_STATE) {
+            cursors = addCursor(cursors, length, dictionary.next(Dictionary.ROOT, digit));
+        }
+        frontierEnds[length + 1] = cursors;
+
+        // The longest word wins a tie, since the cursors are in the order of their start
+        for (int cursor = frontierEnds[length]; cursor < cursors; cursor++) {
+            final int from = best(cursorStarts[cursor]);
+            if (dictionary.getWordCount(cursorNodes[cursor]) > 0 && keys[from] + Ranking.WORD < keys[afterWord]) {
+                keys[afterWord] = keys[from] + Ranking.WORD;
+                previousStates[afterWord] = from;
+                tokenNodes[afterWord] = cursorNodes[cursor];
+            }
+        }
+    }
+
+    /**
+     * Type the digits of a text, ignoring anything else, e.g. pasted punctuation.
+     *
+     * @param text the text
+     */
+    public void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                append(c);
+            }
+        }
+    }
+
+    /**
+     * Delete the last digit, going back to the state the session was in before it was typed.
+     *
+     * @return whether there was a digit to delete
+     */
+    public boolean backspace() {
+        if (digits.length() == 0) {
+            return false;
+        }
+        digits.setLength(digits.length() - 1);
+        return true;
+    }
+
+    /**
+     * Delete every digit.
+     */
+    public void clear() {
+        digits.setLength(0);
+        keys[state(0, false)] = 0;
+        keys[state(0, true)] = Ranking.UNREACHABLE;
+        previousStates[state(0, false)] = NO_STATE;
+        frontierEnds[0] = 0;
+    }
+
+    /**
+     * Suggest ways to spell the digits typed so far that end with a word, see the description of the class.
+     *
+     * @param limit maximum number of suggestions
+     * @return the suggestions, best first, or none if no word can finish the digits
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public List<String> suggest(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Number of suggestions must be positive: " + limit);
+        }
+        final int length = digits.length();
+        final List<String> suggestions = new ArrayList<>(Math.min(limit, INITIAL_CAPACITY));
+        final int first = length == 0 ? frontierEnds[0] : frontierEnds[length - 1];
+        for (int cursor = first; cursor < frontierEnds[length] && suggestions.size() < limit; cursor++) {
+            final String spelled = spell(best(cursorStarts[cursor]));
+            complete(cursorNodes[cursor], spelled.isEmpty() ? spelled : spelled + '-', limit, suggestions);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Add the words at and below a node to the suggestions, breadth first so that the fewest extra digits come first.
+     */
+    private void complete(int node, String prefix, int limit, List<String> suggestions) {
+        int[] queue = new int[INITIAL_CAPACITY];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = node;
+        while (head < tail && suggestions.size() < limit) {
+            final int current = queue[head++];
+            for (int w = 0; w < dictionary.getWordCount(current) && suggestions.size() < limit; w++) {
+                suggestions.add(prefix + dictionary.getWord(current, w));
+            }
+            for (char digit = '0'; digit <= '9'; digit++) {
+                final int child = dictionary.next(current, digit);
+                if (child != Dictionary.NO_NODE) {
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, tail * 2);
+                    }
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the best spelling of a prefix, its tokens separated by <code>-</code> except within a run of digits
+     */
+    private String spell(int state) {
+        final List<Integer> states = new ArrayList<>();
+        for (int current = state; previousStates[current] != NO_STATE; current = previousStates[current]) {
+            states.add(current);
+        }
+        final StringBuilder spelled = new StringBuilder(digits.length() * 2);
+        for (int i = states.size() - 1; i >= 0; i--) {
+            final int current = states.get(i);
+            final boolean rawDigit = tokenNodes[current] == RAW_DIGIT;
+            if (spelled.length() > 0 && !(rawDigit && isAfterDigit(previousStates[current]))) {
+                spelled.append('-');
+            }
+            if (rawDigit) {
+                spelled.append(digits.charAt(position(current) - 1));
+            } else {
+                spelled.append(dictionary.getWord(tokenNodes[current], 0));
+            }
+        }
+        return spelled.toString();
+    }
+
+    private void leaveDigit(int from, int to) {
+        if (keys[from] != Ranking.UNREACHABLE && keys[from] + Ranking.DIGIT < keys[to]) {
+            keys[to] = keys[from] + Ranking.DIGIT;
+            previousStates[to] = from;
+            tokenNodes[to] = RAW_DIGIT;
+        }
+    }
+
+    private int addCursor(int cursors, int start, int node) {
+        if (node == Dictionary.NO_NODE) {
+            return cursors;
+        }
+        if (cursors == cursorStarts.length) {
+            cursorStarts = Arrays.copyOf(cursorStarts, cursors * 2);
+            cursorNodes = Arrays.copyOf(cursorNodes, cursors * 2);
+        }
+        cursorStarts[cursors] = start;
+        cursorNodes[cursors] = node;
+        return cursors + 1;
+    }
+
+    /**
+     * @return the better ranked state of a prefix, or {@link #NO_STATE} if it cannot be spelled
+     */
+    private int best(int length) {
+        final int afterWord = state(length, false);
+        final int afterDigit = state(length, true);
+        if (keys[afterWord] == Ranking.UNREACHABLE && keys[afterDigit] == Ranking.UNREACHABLE) {
+            return NO_STATE;
+        }
+        return keys[afterWord] <= keys[afterDigit] ? afterWord : afterDigit;
+    }
+
+    private void ensureCapacity(int length) {
+        if (state(length, true) >= keys.length) {
+            final int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            previousStates = Arrays.copyOf(previousStates, capacity);
+            tokenNodes = Arrays.copyOf(tokenNodes, capacity);
+        }
+        if (length >= frontierEnds.length) {
+            frontierEnds = Arrays.copyOf(frontierEnds, frontierEnds.length * 2);
+        }
+    }
+
+    private static int state(int length, boolean afterDigit) {
+        return length * 2 + (afterDigit ? 1 : 0);
+    }
+
+    private static int position(int state) {
+        return state / 2;
+    }
+
+    private static boolean isAfterDigit(int state) {
+        return (state & 1) == 1;
+    }
+
+}
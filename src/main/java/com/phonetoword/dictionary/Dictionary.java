@@ -1,28 +1,79 @@
 package com.phonetoword.dictionary;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
 
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * A collection of words, indexed by their numeric equivalent.
+ * <p>
+ * The index is a digit trie. Each node is identified by an <code>int</code>, so callers can walk a number one digit at
+ * a time with {@link #next(int, char)} and give up as soon as no dictionary word can follow the digits seen so far.
+ * Every word has exactly one character per digit of its numeric equivalent.
+ * <p>
+ * Lookups never modify the dictionary, so once loaded it can be shared by any number of threads.
  */
-public class Dictionary {
+public interface Dictionary {
 
-    private final HashMultimap<String, String> dictionary;
-    private int maxWordLength = 0;
-    private int totalWordCount = 0;
+    /**
+     * Node of the empty number, the starting point of every walk.
+     */
+    int ROOT = 0;
 
-    public Dictionary() {
-        dictionary = HashMultimap.create();
-    }
+    /**
+     * Returned by {@link #next(int, char)} when no word continues with the given digit.
+     */
+    int NO_NODE = -1;
+
+    int getMaxWordLength();
 
-    public int getMaxWordLength() {
-        return maxWordLength;
+    int getTotalWordCount();
+
+    /**
+     * @return a number that changes whenever words are added to or removed from the dictionary in place, so that
+     *         results computed from it can be told apart from those computed after an update. Dictionaries that never
+     *         change always return 0.
+     */
+    default long getVersion() {
+        return 0;
     }
 
-    public int getTotalWordCount() {
-        return totalWordCount;
+    /**
+     * Move one digit down the trie.
+     *
+     * @param node node reached so far, {@link #ROOT} for the empty number
+     * @param digit next digit of the number
+     * @return node for the extended number, or {@link #NO_NODE} if no word starts with it
+     */
+    int next(int node, char digit);
+
+    /**
+     * @param node a node returned by {@link #next(int, char)}
+     * @return number of words whose numeric equivalent ends exactly at this node
+     */
+    int getWordCount(int node);
+
+    /**
+     * @param node a node returned by {@link #next(int, char)}
+     * @param index index of the word, below {@link #getWordCount(int)}
+     * @return word stored at the node
+     */
+    String getWord(int node, int index);
+
+    /**
+     * Copy a word into a character buffer, without creating a String where the implementation allows it.
+     *
+     * @param node a node returned by {@link #next(int, char)}
+     * @param index index of the word, below {@link #getWordCount(int)}
+     * @param destination buffer to copy into, with room for the word
+     * @param offset position in the buffer to copy the first character to
+     * @return number of characters copied
+     */
+    default int getWordChars(int node, int index, char[] destination, int offset) {
+        final String word = getWord(node, index);
+        word.getChars(0, word.length(), destination, offset);
+        return word.length();
     }
 
     /**
@@ -31,22 +82,53 @@ public class Dictionary {
      * @param number Number to lookup
      * @return Return set of words that match a given numeric sequence.
      */
-    public Set<String> getWordsForNumber(String number) {
-        return dictionary.get(number);
+    default Set<String> getWordsForNumber(String number) {
+        int node = ROOT;
+        for (int i = 0; i < number.length() && node != NO_NODE; i++) {
+            node = next(node, number.charAt(i));
+        }
+        if (node == NO_NODE) {
+            return ImmutableSet.of();
+        }
+        final ImmutableSet.Builder<String> words = ImmutableSet.builder();
+        for (int i = 0; i < getWordCount(node); i++) {
+            words.add(getWord(node, i));
+        }
+        return words.build();
     }
 
     /**
-     * Add a word to the dictionary, indexed by its numeric equivalent.
+     * Visit every word in ascending order of its numeric equivalent. Words with the same numeric equivalent are
+     * visited in the order they were added.
      *
-     * @param number
-     * @param word
+     * @param consumer receives the numeric equivalent and the word
      */
-    public void addWord(String number, String word) {
-        if (maxWordLength < word.length()) {
-            maxWordLength = word.length();
+    default void forEachWord(BiConsumer<String, String> consumer) {
+        forEachWord(ROOT, new StringBuilder(getMaxWordLength()), consumer);
+    }
+
+    /**
+     * Visit every word at or below a node, in ascending order of numeric equivalent.
+     *
+     * @param node node to start from
+     * @param number digits leading to the node; restored to its original length on return
+     * @param consumer receives the numeric equivalent and the word
+     */
+    default void forEachWord(int node, StringBuilder number, BiConsumer<String, String> consumer) {
+        if (getWordCount(node) > 0) {
+            final String key = number.toString();
+            for (int i = 0; i < getWordCount(node); i++) {
+                consumer.accept(key, getWord(node, i));
+            }
+        }
+        for (char digit = '0'; digit <= '9'; digit++) {
+            final int child = next(node, digit);
+            if (child != NO_NODE) {
+                number.append(digit);
+                forEachWord(child, number, consumer);
+                number.setLength(number.length() - 1);
+            }
         }
-        dictionary.put(number, word);
-        totalWordCount++;
     }
 
 }
@@ -0,0 +1,203 @@
+package com.phonetoword.dictionary;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The letters printed on each key of a phone keypad, as lookup tables indexed by character.
+ * <p>
+ * Mapping a character takes two array reads, one for the block of 256 characters it is in and one for the character
+ * itself, so words can be turned into numbers without a branch per letter or any object per character. Blocks without
+ * any letter of the keypad are left out, so a layout only costs a few hundred bytes per script it covers. Letters are
+ * mapped in either case; every other character has no digit.
+ * <p>
+ * Besides the {@link #STANDARD} layout, the layouts of {@link #forName(String)} and those loaded from a file also map
+ * accented letters that are not listed on any key to the key of their base letter, e.g. <code>É</code> to 3. National
+ * layouts carry the Latin letters on the same keys as the standard one.
+ */
+public final class Keypad {
+
+    /**
+     * Returned by {@link #digit(char)} for a character that is not on any key.
+     */
+    public static final char NO_DIGIT = 0;
+
+    /**
+     * The ITU E.161 layout: ABC on 2, DEF on 3, GHI on 4, JKL on 5, MNO on 6, PQRS on 7, TUV on 8 and WXYZ on 9.
+     */
+    public static final Keypad STANDARD =
+            new Keypad("standard", false, "", "", "ABC", "DEF", "GHI", "JKL", "MNO", "PQRS", "TUV", "WXYZ");
+
+    private static final int KEYS = 10;
+    private static final int BLOCK_BITS = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final String name;
+    /** Digit of every character by block, <code>null</code> for a block without any letter of the keypad. */
+    private final char[][] blocks = new char[BLOCK_SIZE][];
+
+    /**
+     * @param name name of the layout
+     * @param foldAccents whether accented letters not on any key go on the key of their base letter
+     * @param keys upper case letters of each key, from 0 to 9
+     */
+    private Keypad(String name, boolean foldAccents, String... keys) {
+        this.name = name;
+        final char[] upperDigits = new char[Character.MAX_VALUE + 1];
+        for (int key = 0; key < keys.length; key++) {
+            for (int i = 0; i < keys[key].length(); i++) {
+                upperDigits[Character.toUpperCase(keys[key].charAt(i))] = (char) ('0' + key);
+            }
+        }
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            final char upper = Character.toUpperCase((char) c);
+            char digit = upperDigits[upper];
+            if (digit == NO_DIGIT && foldAccents && Character.isLetter(upper)) {
+                final String decomposed = Normalizer.normalize(String.valueOf(upper), Normalizer.Form.NFD);
+                digit = decomposed.length() > 1 ? upperDigits[decomposed.charAt(0)] : NO_DIGIT;
+            }
+            if (digit != NO_DIGIT) {
+                if (blocks[c >>> BLOCK_BITS] == null) {
+                    blocks[c >>> BLOCK_BITS] = new char[BLOCK_SIZE];
+                }
+                blocks[c >>> BLOCK_BITS][c & BLOCK_MASK] = digit;
+            }
+        }
+    }
+
+    /**
+     * @param name name of a built in layout: <code>standard</code>, <code>latin</code>, <code>greek</code> or
+     *        <code>cyrillic</code>, in any case
+     * @return the layout
+     * @throws IllegalArgumentException if there is no such layout
+     */
+    public static Keypad forName(String name) {
+        final Keypad keypad = Layouts.LAYOUTS.get(name.toLowerCase(Locale.ROOT));
+        if (keypad == null) {
+            throw new IllegalArgumentException(
+                    "Unknown keypad layout " + name + ", expected one of " + Layouts.LAYOUTS.keySet());
+        }
+        return keypad;
+    }
+
+    /**
+     * Load a layout from a UTF-8 file with one line per key, the digit followed by the letters on the key, e.g.
+     * <code>2 ABCÄÆÅ</code>. Blank lines and lines starting with <code>#</code> are ignored.
+     *
+     * @param path layout file
+     * @return the layout, named after the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line does not start with a digit
+     */
+    public static Keypad load(Path path) throws IOException {
+        final List<String> keys = new ArrayList<>();
+        for (int key = 0; key < KEYS; key++) {
+            keys.add("");
+        }
+        for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+                continue;
+            }
+            final char key = trimmed.charAt(0);
+            if (key < '0' || key > '9') {
+                throw new IllegalArgumentException("Keypad layout line does not start with a digit: " + line);
+            }
+            keys.set(key - '0', keys.get(key - '0') + trimmed.substring(1).replaceAll("\\s", ""));
+        }
+        return new Keypad(path.getFileName().toString(), true, keys.toArray(new String[KEYS]));
+    }
+
+    /**
+     * @return name of the layout
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param letter a character
+     * @return digit of the key the letter is on, or {@link #NO_DIGIT} if it is not a letter of the keypad
+     */
+    public char digit(char letter) {
+        final char[] block = blocks[letter >>> BLOCK_BITS];
+        return block == null ? NO_DIGIT : block[letter & BLOCK_MASK];
+    }
+
+    /**
+     * Write the number of a word into a buffer. Characters that are not on the keypad are skipped.
+     *
+     * @param word the word
+     * @param destination buffer with room for a digit per character of the word
+     * @return number of digits written
+     */
+    public int toDigits(CharSequence word, char[] destination) {
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            final char digit = digit(word.charAt(i));
+            if (digit != NO_DIGIT) {
+                destination[length++] = digit;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @param word the word
+     * @return the phone dialing sequence of the word, skipping characters that are not on the keypad
+     */
+    public String toNumber(CharSequence word) {
+        final char[] number = new char[word.length()];
+        return new String(number, 0, toDigits(word, number));
+    }
+
+    /**
+     * @param word a line of a word list
+     * @return the letters of the line that are on the keypad, in upper case, which is how words are stored in a
+     *         dictionary
+     */
+    public String normalise(CharSequence word) {
+        final char[] letters = new char[word.length()];
+        int length = 0;
+        for (int i = 0; i < word.length(); i++) {
+            final char c = word.charAt(i);
+            if (digit(c) != NO_DIGIT) {
+                letters[length++] = Character.toUpperCase(c);
+            }
+        }
+        return new String(letters, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Built in layouts, only built on first use since folding accents goes through every character.
+     */
+    private static final class Layouts {
+
+        static final Map<String, Keypad> LAYOUTS = ImmutableMap.of("standard", STANDARD,
+                "latin", new Keypad("latin", true, "", "", "ABC", "DEF", "GHI", "JKL", "MNO", "PQRS", "TUV", "WXYZ"),
+                "greek", new Keypad("greek", true, "", "", "ABCΑΒΓ", "DEFΔΕΖ", "GHIΗΘΙ", "JKLΚΛΜ", "MNOΝΞΟ",
+                        "PQRSΠΡΣ", "TUVΤΥΦ", "WXYZΧΨΩ"),
+                "cyrillic", new Keypad("cyrillic", true, "", "", "ABCАБВГ", "DEFДЕЁЖЗ", "GHIИЙКЛ", "JKLМНОП",
+                        "MNOРСТУ", "PQRSФХЦЧ", "TUVШЩЪЫ", "WXYZЬЭЮЯ"));
+
+        private Layouts() {
+        }
+
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.phonetoword.dictionary;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dictionaries of several locales held in memory side by side, e.g. to answer requests in English, French and Greek
+ * from a single server.
+ * <p>
+ * Every locale is a {@link Dictionary} of its own, but they all walk one digit trie: the union of the numbers of every
+ * locale, built once. Each node carries a mask of the locales with a word at or below it, so the view of a locale
+ * prunes the branches it has no word in exactly as its own trie would. A locale only adds an index of its words per
+ * node, and words that are spelled the same in several locales share one String. Languages written with the same
+ * keypad share most of their short numbers, so the memory taken grows a lot more slowly than one trie per locale.
+ * <p>
+ * The dictionaries are read-only copies of their sources, built in the constructor, and can be shared by any number of
+ * threads.
+ */
+public final class LocaleDictionaries {
+
+    /**
+     * Most locales that can be held together, one per bit of the locale masks.
+     */
+    public static final int MAX_LOCALES = Long.SIZE;
+
+    private static final int RADIX = 10;
+
+    private final Map<String, Dictionary> dictionaries;
+    private final String defaultLocale;
+    private final int nodeCount;
+    private final int distinctWordCount;
+
+    /**
+     * @param sources dictionary of each locale, by name. The first one is the default locale.
+     * @throws IllegalArgumentException if there are no sources or more than {@link #MAX_LOCALES}
+     */
+    public LocaleDictionaries(Map<String, ? extends Dictionary> sources) {
+        if (sources.isEmpty() || sources.size() > MAX_LOCALES) {
+            throw new IllegalArgumentException(
+                    "Between 1 and " + MAX_LOCALES + " locales are supported, not " + sources.size());
+        }
+        final Builder builder = new Builder();
+        final List<Map.Entry<String, ? extends Dictionary>> entries = new ArrayList<>(sources.entrySet());
+        final List<Words> words = new ArrayList<>(entries.size());
+        for (int locale = 0; locale < entries.size(); locale++) {
+            words.add(builder.add(entries.get(locale).getValue(), 1L << locale));
+        }
+
+        final ImmutableMap.Builder<String, Dictionary> views = ImmutableMap.builder();
+        for (int locale = 0; locale < entries.size(); locale++) {
+            final Dictionary source = entries.get(locale).getValue();
+            views.put(entries.get(locale).getKey(), new LocaleDictionary(builder.children, builder.masks,
+                    1L << locale, words.get(locale), builder.nodes, source.getMaxWordLength()));
+        }
+        dictionaries = views.build();
+        defaultLocale = entries.get(0).getKey();
+        nodeCount = builder.nodes;
+        distinctWordCount = builder.pool.size();
+    }
+
+    /**
+     * @param locale name of a locale
+     * @return dictionary of the locale
+     * @throws IllegalArgumentException if there is no such locale
+     */
+    public Dictionary get(String locale) {
+        final Dictionary dictionary = dictionaries.get(locale);
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Unknown locale " + locale + ", expected one of " + getLocales());
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return names of the locales, the default one first
+     */
+    public Set<String> getLocales() {
+        return dictionaries.keySet();
+    }
+
+    /**
+     * @return name of the first locale
+     */
+    public String getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * @return number of nodes of the shared trie
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return number of different words across all locales, each held once
+     */
+    public int getDistinctWordCount() {
+        return distinctWordCount;
+    }
+
+    /**
+     * Words of one locale in the order they were added, with the node of each.
+     */
+    private static final class Words {
+
+        int[] nodes = new int[1024];
+        final List<String> words = new ArrayList<>();
+
+    }
+
+    /**
+     * Grows the shared trie while the sources are added.
+     */
+    private static final class Builder {
+
+        int[] children = newChildren(1024);
+        long[] masks = new long[1024];
+        int nodes = 1;
+        final Map<String, String> pool = new HashMap<>();
+
+        Words add(Dictionary source, long bit) {
+            final Words words = new Words();
+            masks[Dictionary.ROOT] |= bit;
+            // Words with the same number are visited one after the other, and share the walk down the trie
+            final String[] lastNumber = new String[1];
+            final int[] lastNode = new int[1];
+            source.forEachWord((number, word) -> {
+                if (!number.equals(lastNumber[0])) {
+                    lastNumber[0] = number;
+                    lastNode[0] = insert(number, bit);
+                }
+                final int index = words.words.size();
+                if (index == words.nodes.length) {
+                    words.nodes = Arrays.copyOf(words.nodes, index * 2);
+                }
+                words.nodes[index] = lastNode[0];
+                words.words.add(pool.computeIfAbsent(word, w -> w));
+            });
+            return words;
+        }
+
+        private int insert(String number, long bit) {
+            int node = Dictionary.ROOT;
+            for (int i = 0; i < number.length(); i++) {
+                final int slot = node * RADIX + number.charAt(i) - '0';
+                if (children[slot] == Dictionary.NO_NODE) {
+                    if (nodes == masks.length) {
+                        final int[] grown = newChildren(nodes * 2);
+                        System.arraycopy(children, 0, grown, 0, children.length);
+                        children = grown;
+                        masks = Arrays.copyOf(masks, nodes * 2);
+                    }
+                    children[slot] = nodes++;
+                }
+                node = children[slot];
+                masks[node] |= bit;
+            }
+            return node;
+        }
+
+        private static int[] newChildren(int nodes) {
+            final int[] children = new int[nodes * RADIX];
+            Arrays.fill(children, Dictionary.NO_NODE);
+            return children;
+        }
+
+    }
+
+    /**
+     * The dictionary of one locale over the shared trie.
+     */
+    private static final class LocaleDictionary implements Dictionary {
+
+        private final int[] children;
+        private final long[] masks;
+        private final long bit;
+        private final int[] firstWords;
+        private final String[] words;
+        private final int maxWordLength;
+
+        LocaleDictionary(int[] children, long[] masks, long bit, Words added, int nodes, int maxWordLength) {
+            this.children = children;
+            this.masks = masks;
+            this.bit = bit;
+            this.maxWordLength = maxWordLength;
+            // Counting sort of the words by node, which keeps the words of each node in the order they were added
+            firstWords = new int[nodes + 1];
+            for (int i = 0; i < added.words.size(); i++) {
+                firstWords[added.nodes[i] + 1]++;
+            }
+            for (int node = 0; node < nodes; node++) {
+                firstWords[node + 1] += firstWords[node];
+            }
+            final int[] next = Arrays.copyOf(firstWords, nodes);
+            words = new String[added.words.size()];
+            for (int i = 0; i < added.words.size(); i++) {
+                words[next[added.nodes[i]]++] = added.words.get(i);
+            }
+        }
+
+        @Override
+        public int getMaxWordLength() {
+            return maxWordLength;
+        }
+
+        @Override
+        public int getTotalWordCount() {
+            return words.length;
+        }
+
+        @Override
+        public int next(int node, char digit) {
+            final int index = digit - '0';
+            if (index < 0 || index >= RADIX) {
+                return NO_NODE;
+            }
+            final int child = children[node * RADIX + index];
+            return child != NO_NODE && (masks[child] & bit) != 0 ? child : NO_NODE;
+        }
+
+        @Override
+        public int getWordCount(int node) {
+            return firstWords[node + 1] - firstWords[node];
+        }
+
+        @Override
+        public String getWord(int node, int index) {
+            return words[firstWords[node] + index];
+        }
+
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.phonetoword.dictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only dictionary packed into a single {@link ByteBuffer}, for word lists too large to keep as Java objects.
+ * <p>
+ * The digit trie is stored breadth first, so the children of every node are contiguous and a node only needs a
+ * 10 bit mask of the digits it has children for and the index of its first child. The numeric equivalents of the
+ * words are never stored, they are the paths through the trie. Words are kept as UTF-8 bytes in a single pool and are
+ * only turned into Strings when they are looked up. The buffer can live off-heap, either allocated directly or
+ * memory mapped from a snapshot, and then the dictionary costs the garbage collector nothing.
+ * <p>
+ * The image is laid out as follows, all values big endian:
+ * <ul>
+ * <li>header of four ints: number of nodes, number of words, longest word length, size of the word pool</li>
+ * <li><code>short[nodes]</code> digit mask of each node, padded to a multiple of four bytes</li>
+ * <li><code>int[nodes]</code> index of the first child of each node</li>
+ * <li><code>int[nodes + 1]</code> index of the first word of each node</li>
+ * <li><code>int[words + 1]</code> offset of each word in the word pool</li>
+ * <li>the word pool</li>
+ * </ul>
+ */
+public final class PackedDictionary implements Dictionary {
+
+    private static final int RADIX = 10;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    private final ByteBuffer image;
+    private final int nodeCount;
+    private final int wordCount;
+    private final int maxWordLength;
+    private final int masks;
+    private final int firstChildren;
+    private final int firstWords;
+    private final int wordOffsets;
+    private final int wordPool;
+
+    /**
+     * Wrap an image laid out as described above, e.g. a memory mapped snapshot.
+     *
+     * @param image the image, from position zero to its limit. It must not be modified afterwards.
+     * @throws IllegalArgumentException if the buffer is too small for the sizes in its header
+     */
+    public PackedDictionary(ByteBuffer image) {
+        this.image = image.slice();
+        if (this.image.limit() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Packed dictionary image is truncated");
+        }
+        nodeCount = this.image.getInt(0);
+        wordCount = this.image.getInt(Integer.BYTES);
+        maxWordLength = this.image.getInt(2 * Integer.BYTES);
+        masks = HEADER_BYTES;
+        firstChildren = masks + align(nodeCount * Short.BYTES);
+        firstWords = firstChildren + nodeCount * Integer.BYTES;
+        wordOffsets = firstWords + (nodeCount + 1) * Integer.BYTES;
+        wordPool = wordOffsets + (wordCount + 1) * Integer.BYTES;
+        if (this.image.limit() < wordPool + this.image.getInt(3 * Integer.BYTES)) {
+            throw new IllegalArgumentException("Packed dictionary image is truncated");
+        }
+    }
+
+    /**
+     * Pack any dictionary into a direct, off-heap buffer.
+     *
+     * @param source dictionary to pack
+     * @return packed copy of the dictionary
+     */
+    public static PackedDictionary from(Dictionary source) {
+        // Breadth first order of the source nodes, so that the children of each node are contiguous
+        int[] order = new int[1024];
+        int[] nodeMasks = new int[order.length];
+        int[] nodeFirstChild = new int[order.length];
+        order[0] = ROOT;
+        int nodes = 1;
+        for (int i = 0; i < nodes; i++) {
+            nodeFirstChild[i] = nodes;
+            for (int digit = 0; digit < RADIX; digit++) {
+                final int child = source.next(order[i], (char) ('0' + digit));
+                if (child != NO_NODE) {
+                    if (nodes == order.length) {
+                        order = Arrays.copyOf(order, nodes * 2);
+                        nodeMasks = Arrays.copyOf(nodeMasks, nodes * 2);
+                        nodeFirstChild = Arrays.copyOf(nodeFirstChild, nodes * 2);
+                    }
+                    nodeMasks[i] |= 1 << digit;
+                    order[nodes++] = child;
+                }
+            }
+        }
+
+        final int[] nodeFirstWord = new int[nodes + 1];
+        final List<byte[]> words = new ArrayList<>(source.getTotalWordCount());
+        int poolSize = 0;
+        for (int i = 0; i < nodes; i++) {
+            nodeFirstWord[i] = words.size();
+            for (int w = 0; w < source.getWordCount(order[i]); w++) {
+                final byte[] word = source.getWord(order[i], w).getBytes(StandardCharsets.UTF_8);
+                words.add(word);
+                poolSize += word.length;
+            }
+        }
+        nodeFirstWord[nodes] = words.size();
+
+        final ByteBuffer image = ByteBuffer.allocateDirect(HEADER_BYTES + align(nodes * Short.BYTES)
+                + (2 * nodes + 1 + words.size() + 1) * Integer.BYTES + poolSize);
+        image.putInt(nodes).putInt(words.size()).putInt(source.getMaxWordLength()).putInt(poolSize);
+        for (int i = 0; i < nodes; i++) {
+            image.putShort((short) nodeMasks[i]);
+        }
+        image.position(HEADER_BYTES + align(nodes * Short.BYTES));
+        for (int i = 0; i < nodes; i++) {
+            image.putInt(nodeFirstChild[i]);
+        }
+        for (int i = 0; i <= nodes; i++) {
+            image.putInt(nodeFirstWord[i]);
+        }
+        int offset = 0;
+        for (final byte[] word : words) {
+            image.putInt(offset);
+            offset += word.length;
+        }
+        image.putInt(offset);
+        for (final byte[] word : words) {
+            image.put(word);
+        }
+        image.flip();
+        return new PackedDictionary(image);
+    }
+
+    @Override
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    @Override
+    public int getTotalWordCount() {
+        return wordCount;
+    }
+
+    @Override
+    public int next(int node, char digit) {
+        final int index = digit - '0';
+        if (index < 0 || index >= RADIX) {
+            return NO_NODE;
+        }
+        final int mask = image.getShort(masks + node * Short.BYTES);
+        final int bit = 1 << index;
+        if ((mask & bit) == 0) {
+            return NO_NODE;
+        }
+        return image.getInt(firstChildren + node * Integer.BYTES) + Integer.bitCount(mask & bit - 1);
+    }
+
+    @Override
+    public int getWordCount(int node) {
+        return image.getInt(firstWords + (node + 1) * Integer.BYTES) - image.getInt(firstWords + node * Integer.BYTES);
+    }
+
+    /**
+     * Decodes the word from the pool, so unlike {@link TrieDictionary} every call returns a new String.
+     */
+    @Override
+    public String getWord(int node, int index) {
+        final int word = image.getInt(firstWords + node * Integer.BYTES) + index;
+        final int start = image.getInt(wordOffsets + word * Integer.BYTES);
+        final byte[] bytes = new byte[image.getInt(wordOffsets + (word + 1) * Integer.BYTES) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = image.get(wordPool + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ASCII words, which is all a word list normally holds, are decoded straight into the buffer.
+     */
+    @Override
+    public int getWordChars(int node, int index, char[] destination, int offset) {
+        final int word = image.getInt(firstWords + node * Integer.BYTES) + index;
+        final int start = wordPool + image.getInt(wordOffsets + word * Integer.BYTES);
+        final int end = wordPool + image.getInt(wordOffsets + (word + 1) * Integer.BYTES);
+        for (int i = start; i < end; i++) {
+            final byte b = image.get(i);
+            if (b < 0) {
+                return Dictionary.super.getWordChars(node, index, destination, offset);
+            }
+            destination[offset + i - start] = (char) b;
+        }
+        return end - start;
+    }
+
+    /**
+     * @return number of nodes in the trie
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return read-only view of the whole image, e.g. to write it to a snapshot
+     */
+    public ByteBuffer image() {
+        return image.asReadOnlyBuffer();
+    }
+
+    private static int align(int bytes) {
+        return bytes + 3 & ~3;
+    }
+
+}
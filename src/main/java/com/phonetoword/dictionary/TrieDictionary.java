@@ -0,0 +1,247 @@
+package com.phonetoword.dictionary;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A growable dictionary stored in an array backed 10-way digit trie. Every node has one child slot per digit and an
+ * array of the words that end at it, which makes lookups fast at the cost of a few objects per word. For very large
+ * word lists see {@link PackedDictionary}.
+ * <p>
+ * Words can be added and removed while other threads look words up. Updates are applied one at a time in place, and
+ * lookups never lock or wait for them:
+ * <ul>
+ * <li>the words of a node are an immutable array, replaced as a whole and read with a single volatile read, so a
+ * lookup sees the words of a node either wholly before or wholly after an update</li>
+ * <li>adding a word appends it to the array of its node, so an index read from {@link #getWordCount(int)} still
+ * returns the same word afterwards</li>
+ * <li>removing a word never changes its node: a copy of the node with the remaining words takes its place in the
+ * trie, so a caller that has already reached the node keeps seeing the words it counted</li>
+ * <li>the trie arrays are published through volatile fields when they grow, the words before the child slots, so a
+ * node reached through a child slot always has an entry in the words array</li>
+ * </ul>
+ * A walk that makes several calls, such as a conversion, can therefore see some updates of a batch and not others,
+ * but every word it sees was in the dictionary for that number when it reached the node. Nodes are never reclaimed: a
+ * node whose words are all removed is simply left empty, and every removal leaves the node it replaced behind, since
+ * there is no telling whether a caller still holds it. Each removal therefore grows the trie by one node, about fifty
+ * bytes, for as long as the dictionary is in use: a dictionary that keeps having the same words added and removed
+ * grows without limit, and has to be loaded afresh to get the space back.
+ * {@link #getVersion()} changes with every update, so that results computed before it can be told apart.
+ */
+public class TrieDictionary implements Dictionary {
+
+    private static final int RADIX = 10;
+    private static final int INITIAL_NODE_CAPACITY = 1024;
+    private static final String[] NO_WORDS = new String[0];
+
+    private volatile AtomicIntegerArray children;
+    private volatile AtomicReferenceArray<String[]> words;
+    private int nodeCount;
+    /** Number of words of each length, to find the longest word again after removals. */
+    private int[] wordLengths = new int[1];
+    private volatile int maxWordLength = 0;
+    private volatile int totalWordCount = 0;
+    private final AtomicLong version = new AtomicLong();
+
+    public TrieDictionary() {
+        words = new AtomicReferenceArray<>(INITIAL_NODE_CAPACITY);
+        children = newChildren(INITIAL_NODE_CAPACITY);
+        nodeCount = 1;
+    }
+
+    @Override
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    @Override
+    public int getTotalWordCount() {
+        return totalWordCount;
+    }
+
+    /**
+     * @return number of words added or removed so far, loading included
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public Set<String> getWordsForNumber(String number) {
+        int node = ROOT;
+        for (int i = 0; i < number.length() && node != NO_NODE; i++) {
+            node = next(node, number.charAt(i));
+        }
+        final String[] nodeWords = node == NO_NODE ? null : words.get(node);
+        if (nodeWords == null) {
+            return ImmutableSet.of();
+        }
+        return ImmutableSet.copyOf(nodeWords);
+    }
+
+    @Override
+    public int next(int node, char digit) {
+        final int index = digit - '0';
+        if (index < 0 || index >= RADIX) {
+            return NO_NODE;
+        }
+        return children.get(node * RADIX + index);
+    }
+
+    @Override
+    public int getWordCount(int node) {
+        final String[] nodeWords = words.get(node);
+        return nodeWords == null ? 0 : nodeWords.length;
+    }
+
+    @Override
+    public String getWord(int node, int index) {
+        return words.get(node)[index];
+    }
+
+    /**
+     * Add a word to the dictionary, indexed by its numeric equivalent.
+     *
+     * @param number
+     * @param word
+     * @return whether the word was added, <code>false</code> if it was already in the dictionary
+     * @throws IllegalArgumentException if the word is empty, the number is not made up of digits, or the word does
+     *         not have one character per digit of the number
+     */
+    public synchronized boolean addWord(String number, String word) {
+        if (word.isEmpty()) {
+            throw new IllegalArgumentException("Word for number " + number + " is empty");
+        }
+        if (number.length() != word.length()) {
+            throw new IllegalArgumentException("Word " + word + " does not match number " + number);
+        }
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                throw new IllegalArgumentException("Number " + number + " of word " + word + " is not all digits");
+            }
+        }
+        int node = ROOT;
+        for (int i = 0; i < number.length(); i++) {
+            final int slot = node * RADIX + number.charAt(i) - '0';
+            if (children.get(slot) == NO_NODE) {
+                final int child = newNode();
+                children.set(slot, child);
+            }
+            node = children.get(slot);
+        }
+
+        final String[] nodeWords = words.get(node);
+        final String[] current = nodeWords == null ? NO_WORDS : nodeWords;
+        for (final String existing : current) {
+            if (existing.equals(word)) {
+                return false;
+            }
+        }
+        final String[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = word;
+        words.set(node, updated);
+
+        if (wordLengths.length <= word.length()) {
+            wordLengths = Arrays.copyOf(wordLengths, word.length() + 1);
+        }
+        wordLengths[word.length()]++;
+        if (maxWordLength < word.length()) {
+            maxWordLength = word.length();
+        }
+        totalWordCount++;
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Remove a word from the dictionary. The node of the word is replaced by a copy, so every removal grows the trie
+     * by one node that is never reclaimed.
+     *
+     * @param number numeric equivalent of the word
+     * @param word
+     * @return whether the word was removed, <code>false</code> if it was not in the dictionary
+     */
+    public synchronized boolean removeWord(String number, String word) {
+        if (number.isEmpty()) {
+            // No word ends at the root, which could not be replaced anyway as every walk starts there
+            return false;
+        }
+        int parentSlot = NO_NODE;
+        int node = ROOT;
+        for (int i = 0; i < number.length() && node != NO_NODE; i++) {
+            final int index = number.charAt(i) - '0';
+            if (index < 0 || index >= RADIX) {
+                return false;
+            }
+            parentSlot = node * RADIX + index;
+            node = children.get(parentSlot);
+        }
+        final String[] current = node == NO_NODE ? null : words.get(node);
+        if (current == null) {
+            return false;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(word)) {
+                final String[] updated = new String[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                replaceNode(parentSlot, node, updated);
+
+                wordLengths[word.length()]--;
+                int longest = maxWordLength;
+                while (longest > 0 && wordLengths[longest] == 0) {
+                    longest--;
+                }
+                maxWordLength = longest;
+                totalWordCount--;
+                version.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put a copy of a node with other words in its place, leaving the node as it is for callers that have reached it.
+     */
+    private void replaceNode(int parentSlot, int node, String[] updated) {
+        final int copy = newNode();
+        final AtomicIntegerArray trie = children;
+        for (int digit = 0; digit < RADIX; digit++) {
+            trie.set(copy * RADIX + digit, trie.get(node * RADIX + digit));
+        }
+        words.set(copy, updated);
+        trie.set(parentSlot, copy);
+    }
+
+    private int newNode() {
+        if (nodeCount == words.length()) {
+            final int capacity = nodeCount * 2;
+            final AtomicReferenceArray<String[]> grownWords = new AtomicReferenceArray<>(capacity);
+            for (int node = 0; node < nodeCount; node++) {
+                grownWords.lazySet(node, words.get(node));
+            }
+            final AtomicIntegerArray grownChildren = newChildren(capacity);
+            for (int slot = 0; slot < nodeCount * RADIX; slot++) {
+                grownChildren.lazySet(slot, children.get(slot));
+            }
+            // Words first, so that a reader that sees the new child slots also sees room for their words
+            words = grownWords;
+            children = grownChildren;
+        }
+        return nodeCount++;
+    }
+
+    private static AtomicIntegerArray newChildren(int nodes) {
+        final int[] slots = new int[nodes * RADIX];
+        Arrays.fill(slots, NO_NODE);
+        return new AtomicIntegerArray(slots);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.phonetoword.dictionary;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * How common each word is, used to rank the words of a number so that familiar words come first.
+ * <p>
+ * Raw counts are turned into weights between 0 and 1 on a log scale, so the most common word weighs 1, a word seen
+ * once weighs close to 0 and a word that was never counted weighs 0.
+ */
+public final class WordFrequencies {
+
+    /**
+     * No frequencies, every word weighs the same.
+     */
+    public static final WordFrequencies EMPTY = new WordFrequencies(Collections.<String, Long>emptyMap());
+
+    private final Map<String, Double> weights;
+
+    /**
+     * @param counts number of times each word was seen, keyed by the word in upper case
+     * @throws IllegalArgumentException if a count is negative
+     */
+    public WordFrequencies(Map<String, Long> counts) {
+        long max = 0;
+        for (final Map.Entry<String, Long> count : counts.entrySet()) {
+            if (count.getValue() < 0) {
+                throw new IllegalArgumentException("Negative frequency for " + count.getKey() + ": " + count.getValue());
+            }
+            max = Math.max(max, count.getValue());
+        }
+        final ImmutableMap.Builder<String, Double> builder = ImmutableMap.builder();
+        for (final Map.Entry<String, Long> count : counts.entrySet()) {
+            if (count.getValue() > 0) {
+                builder.put(count.getKey(), Math.log1p(count.getValue()) / Math.log1p(max));
+            }
+        }
+        weights = builder.build();
+    }
+
+    /**
+     * @param word word in upper case
+     * @return weight of the word between 0 and 1, or 0 if it was never counted
+     */
+    public double getWeight(String word) {
+        final Double weight = weights.get(word);
+        return weight == null ? 0 : weight;
+    }
+
+    /**
+     * @return number of words with a weight
+     */
+    public int size() {
+        return weights.size();
+    }
+
+}
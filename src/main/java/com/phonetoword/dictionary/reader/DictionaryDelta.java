@@ -0,0 +1,75 @@
+package com.phonetoword.dictionary.reader;
+
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.TrieDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A delta file applied in place to a dictionary that is in use, once when it is opened and again whenever it changes,
+ * see {@link DictionaryReader#applyDelta(TrieDictionary, Path, Keypad)}. Pushing a blocklist or a few new words this
+ * way takes milliseconds however large the dictionary is, and conversions carry on while it is applied.
+ * <p>
+ * The whole file is applied on every change. Adding a word that is there already or removing one that is not changes
+ * nothing, so lines can simply be appended, but taking a line out of the file does not undo it. A file that cannot be
+ * read is logged and skipped until it changes again.
+ */
+public class DictionaryDelta implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryDelta.class);
+
+    private final TrieDictionary dictionary;
+    private final Path path;
+    private final Keypad keypad;
+    private final FileWatcher watcher;
+
+    /**
+     * Apply the file if it exists, and start watching it.
+     *
+     * @param dictionary dictionary to update
+     * @param path delta file, which need not exist yet
+     * @param keypad layout of the keypad the dictionary was loaded with
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public DictionaryDelta(TrieDictionary dictionary, Path path, Keypad keypad) throws IOException {
+        this.dictionary = dictionary;
+        this.path = path.toAbsolutePath();
+        this.keypad = keypad;
+        if (Files.exists(this.path)) {
+            apply();
+        }
+        this.watcher = new FileWatcher(this.path, "dictionary-delta-watcher", this::apply);
+    }
+
+    /**
+     * Apply the file now.
+     *
+     * @return number of words actually added or removed, 0 if the file cannot be read
+     */
+    public int apply() {
+        final int changed;
+        try {
+            changed = DictionaryReader.applyDelta(dictionary, path, keypad);
+        } catch (final IOException | UncheckedIOException e) {
+            LOGGER.error("Could not apply dictionary delta {}: {}", path, e.getMessage());
+            return 0;
+        }
+        LOGGER.info("Applied {} changes from dictionary delta {}, {} words in the dictionary.", changed, path,
+                dictionary.getTotalWordCount());
+        return changed;
+    }
+
+    /**
+     * Stop watching the file. The updates applied so far stay in the dictionary.
+     */
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+}
@@ -3,6 +3,10 @@ package com.phonetoword.dictionary.reader;
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.TrieDictionary;
+import com.phonetoword.dictionary.WordFrequencies;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -11,6 +15,11 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 /**
@@ -19,6 +28,11 @@ import java.util.stream.Stream;
  */
 public class DictionaryReader {
 
+    /**
+     * A word followed by a frequency of up to 18 digits, which always fits in a <code>long</code>.
+     */
+    private static final Pattern FREQUENCY_LINE = Pattern.compile("(.*\\S)\\s+(\\d{1,18})\\s*");
+
     /**
      * private constructor to avoid instantiation
      */
@@ -31,7 +45,7 @@ public class DictionaryReader {
      * @return Dictionary an in-memory ordered structure to store number and word map
      * @throws IOException
      */
-    public static Dictionary load(Path path) throws IOException {
+    public static TrieDictionary load(Path path) throws IOException {
         try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
             return load(bufferedReader.lines());
         }
@@ -44,7 +58,7 @@ public class DictionaryReader {
      * @return Dictionary an in-memory ordered structure to store number and word map
      * @throws IOException
      */
-    public static Dictionary load(InputStream inputStream) throws IOException {
+    public static TrieDictionary load(InputStream inputStream) throws IOException {
         try (BufferedReader bufferedReader =
                 new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
             return load(bufferedReader.lines());
@@ -57,72 +71,209 @@ public class DictionaryReader {
      * @param lines stream of lines which need to be loaded in dictionary
      * @return Dictionary an in-memory ordered structure to store number and word map
      */
-    public static Dictionary load(Stream<String> lines) {
-        final Dictionary dictionary = new Dictionary();
-        lines.map(DictionaryReader::keepOnlyAlphabets).distinct().filter(word -> !isNullOrEmpty(word))
-                .map(String::toUpperCase).forEach(word -> {
-                    final String number = wordToNumber(word);
-                    dictionary.addWord(number, word);
-                });
+    public static TrieDictionary load(Stream<String> lines) {
+        return load(lines, Keypad.STANDARD);
+    }
+
+    /**
+     * Load each usable word from a dictionary file for another keypad layout, e.g. a word list in another language.
+     * Only the letters of each line that are on the keypad make up the word.
+     *
+     * @param path path for the UTF-8 file from which words need to be loaded in dictionary
+     * @param keypad layout of the keypad the words are dialed on
+     * @return Dictionary an in-memory ordered structure to store number and word map
+     * @throws IOException
+     */
+    public static TrieDictionary load(Path path, Keypad keypad) throws IOException {
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
+            return load(bufferedReader.lines(), keypad);
+        }
+    }
+
+    /**
+     * Load each usable word from a dictionary file for another keypad layout, see {@link #load(Path, Keypad)}.
+     *
+     * @param lines stream of lines which need to be loaded in dictionary
+     * @param keypad layout of the keypad the words are dialed on
+     * @return Dictionary an in-memory ordered structure to store number and word map
+     */
+    public static TrieDictionary load(Stream<String> lines, Keypad keypad) {
+        final TrieDictionary dictionary = new TrieDictionary();
+        lines.map(keypad::normalise).distinct().filter(word -> !isNullOrEmpty(word)).forEach(word -> {
+            final String number = keypad.toNumber(word);
+            dictionary.addWord(number, word);
+        });
         return dictionary;
     }
 
     /**
-     * Returns the phone dialing sequence corresponding to a word.
+     * Load each usable word from a large dictionary file on a pool of threads. The file is memory mapped in chunks of
+     * a few megabytes that are parsed in parallel, and the result is the same dictionary {@link #load(Path)} builds.
      *
-     * @param word
-     * @return the phone dialing sequence corresponding to a word.
+     * @param path path for the file from which words need to be loaded in dictionary
+     * @param pool threads to parse the file on
+     * @return Dictionary an in-memory ordered structure to store number and word map
+     * @throws IOException if the file cannot be read or is not valid UTF-8
      */
-    private static String wordToNumber(String word) {
-        final StringBuilder number = new StringBuilder(word.length());
-        for (int i = 0; i < word.length(); i++) {
-            number.append(getNumber(word.charAt(i)));
+    public static TrieDictionary loadInParallel(Path path, ForkJoinPool pool) throws IOException {
+        return loadInParallel(path, pool, ParallelDictionaryLoader.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Load each usable word from a large dictionary file on a pool of threads, parsing chunks of about the given size.
+     *
+     * @param path path for the file from which words need to be loaded in dictionary
+     * @param pool threads to parse the file on
+     * @param chunkBytes size of the chunks, each extended to the end of its last line
+     * @return Dictionary an in-memory ordered structure to store number and word map
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     * @throws IllegalArgumentException if the chunk size is not positive
+     */
+    public static TrieDictionary loadInParallel(Path path, ForkJoinPool pool, int chunkBytes) throws IOException {
+        return ParallelDictionaryLoader.load(path, Keypad.STANDARD, pool, chunkBytes);
+    }
+
+    /**
+     * Apply a delta file to a dictionary in place, e.g. to push a blocklist or a few new words to a dictionary that is
+     * in use. Lines starting with <code>-</code> remove a word and any other line adds one, so a plain word list adds
+     * all of its words. Words are normalised the same way as when loading with the same keypad.
+     *
+     * @param dictionary dictionary to update
+     * @param path path of the UTF-8 delta file
+     * @param keypad layout of the keypad the dictionary was loaded with
+     * @return number of words actually added or removed
+     * @throws IOException
+     */
+    public static int applyDelta(TrieDictionary dictionary, Path path, Keypad keypad) throws IOException {
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
+            return applyDelta(dictionary, bufferedReader.lines(), keypad);
         }
-        return number.toString();
-    }
-
-    private static String keepOnlyAlphabets(String word) {
-        return word.replaceAll("[^a-zA-Z]", "");
-    }
-
-    private static char getNumber(int uppercaseLetter) {
-        switch (uppercaseLetter) {
-            case 'A':
-            case 'B':
-            case 'C':
-                return '2';
-            case 'D':
-            case 'E':
-            case 'F':
-                return '3';
-            case 'G':
-            case 'H':
-            case 'I':
-                return '4';
-            case 'J':
-            case 'K':
-            case 'L':
-                return '5';
-            case 'M':
-            case 'N':
-            case 'O':
-                return '6';
-            case 'P':
-            case 'Q':
-            case 'R':
-            case 'S':
-                return '7';
-            case 'T':
-            case 'U':
-            case 'V':
-                return '8';
-            case 'W':
-            case 'X':
-            case 'Y':
-            case 'Z':
-                return '9';
-            default:
-                return '0';
+    }
+
+    /**
+     * Apply the lines of a delta file to a dictionary in place, see {@link #applyDelta(TrieDictionary, Path, Keypad)}.
+     *
+     * @param dictionary dictionary to update
+     * @param lines stream of lines of the delta file
+     * @param keypad layout of the keypad the dictionary was loaded with
+     * @return number of words actually added or removed
+     */
+    public static int applyDelta(TrieDictionary dictionary, Stream<String> lines, Keypad keypad) {
+        final int[] changed = new int[1];
+        lines.map(String::trim).filter(line -> !line.isEmpty()).forEach(line -> {
+            final boolean remove = line.charAt(0) == '-';
+            final String word = keypad.normalise(line);
+            if (!isNullOrEmpty(word)) {
+                final String number = keypad.toNumber(word);
+                if (remove ? dictionary.removeWord(number, word) : dictionary.addWord(number, word)) {
+                    changed[0]++;
+                }
+            }
+        });
+        return changed[0];
+    }
+
+    /**
+     * Load word frequencies from a dictionary file whose lines may end with how often the word is used, e.g.
+     * <code>call 5120</code>. Such a file loads as a plain dictionary too, since only the letters of each line make up
+     * the word. Lines without a frequency are skipped, and a word listed more than once keeps its highest frequency.
+     *
+     * @param path path for the dictionary file
+     * @return WordFrequencies frequencies of the words that have one
+     * @throws IOException
+     */
+    public static WordFrequencies loadFrequencies(Path path) throws IOException {
+        return loadFrequencies(path, Keypad.STANDARD);
+    }
+
+    /**
+     * Load word frequencies from a dictionary file for another keypad layout, see {@link #loadFrequencies(Path)}.
+     * Words are normalised the same way as when loading the dictionary with the same keypad, so that they match.
+     *
+     * @param path path for the UTF-8 dictionary file
+     * @param keypad layout of the keypad the words are dialed on
+     * @return WordFrequencies frequencies of the words that have one
+     * @throws IOException
+     */
+    public static WordFrequencies loadFrequencies(Path path, Keypad keypad) throws IOException {
+        try (BufferedReader bufferedReader = Files.newBufferedReader(path)) {
+            return loadFrequencies(bufferedReader.lines(), keypad);
         }
     }
+
+    /**
+     * Load word frequencies from the lines of a dictionary file, see {@link #loadFrequencies(Path)}.
+     *
+     * @param lines stream of lines of the dictionary file
+     * @return WordFrequencies frequencies of the words that have one
+     */
+    public static WordFrequencies loadFrequencies(Stream<String> lines) {
+        return loadFrequencies(lines, Keypad.STANDARD);
+    }
+
+    /**
+     * Load word frequencies from the lines of a dictionary file for another keypad layout, see
+     * {@link #loadFrequencies(Path, Keypad)}.
+     *
+     * @param lines stream of lines of the dictionary file
+     * @param keypad layout of the keypad the words are dialed on
+     * @return WordFrequencies frequencies of the words that have one
+     */
+    public static WordFrequencies loadFrequencies(Stream<String> lines, Keypad keypad) {
+        final Map<String, Long> counts = new HashMap<>();
+        lines.forEach(line -> {
+            final Matcher matcher = FREQUENCY_LINE.matcher(line);
+            if (matcher.matches()) {
+                final String word = keypad.normalise(matcher.group(1));
+                if (!word.isEmpty()) {
+                    counts.merge(word, Long.parseLong(matcher.group(2)), Math::max);
+                }
+            }
+        });
+        return new WordFrequencies(counts);
+    }
+
+    /**
+     * Load each usable word from a dictionary file into a {@link PackedDictionary} held off-heap, for word lists too
+     * large to keep as Java objects once loaded.
+     *
+     * @param path path for the file from which words need to be loaded in dictionary
+     * @return Dictionary a packed, read-only structure to store number and word map
+     * @throws IOException
+     */
+    public static PackedDictionary loadPacked(Path path) throws IOException {
+        return PackedDictionary.from(load(path));
+    }
+
+    /**
+     * Export a dictionary to a binary snapshot that {@link #loadSnapshot(Path)} can load without parsing any words.
+     *
+     * @param dictionary dictionary to export
+     * @param path file to write the snapshot to
+     * @throws IOException
+     */
+    public static void export(Dictionary dictionary, Path path) throws IOException {
+        DictionarySnapshot.write(dictionary, path);
+    }
+
+    /**
+     * Load a dictionary from a binary snapshot written by {@link #export(Dictionary, Path)}. The file is memory mapped
+     * and used as the {@link PackedDictionary} image as it is, so loading takes next to no time or heap.
+     *
+     * @param path path of the snapshot
+     * @return Dictionary a packed, read-only structure to store number and word map
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static PackedDictionary loadSnapshot(Path path) throws IOException {
+        return DictionarySnapshot.read(path);
+    }
+
+    /**
+     * @param path path of a dictionary file
+     * @return whether the file is a binary snapshot rather than a word list
+     * @throws IOException
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        return DictionarySnapshot.isSnapshot(path);
+    }
 }
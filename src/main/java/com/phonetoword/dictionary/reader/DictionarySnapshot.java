@@ -0,0 +1,69 @@
+package com.phonetoword.dictionary.reader;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.PackedDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of a dictionary, so that it can be loaded without parsing the original word list.
+ * <p>
+ * The file holds two big endian ints, {@link #MAGIC} and {@link #VERSION}, followed by the image of a
+ * {@link PackedDictionary}. Loading maps the file and wraps the image as it is, so nothing is parsed or copied onto
+ * the heap.
+ */
+final class DictionarySnapshot {
+
+    static final int MAGIC = 0x89503257;
+    static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private DictionarySnapshot() {}
+
+    static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(magic) == Integer.BYTES && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    static void write(Dictionary dictionary, Path path) throws IOException {
+        final PackedDictionary packed =
+                dictionary instanceof PackedDictionary ? (PackedDictionary) dictionary : PackedDictionary.from(dictionary);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer image = packed.image();
+            while (header.hasRemaining() || image.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, image});
+            }
+        }
+    }
+
+    static PackedDictionary read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a dictionary snapshot: " + path);
+            }
+            if (buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Unsupported dictionary snapshot version " + buffer.getInt(Integer.BYTES)
+                        + " in " + path + ", please export it again");
+            }
+            buffer.position(HEADER_BYTES);
+            try {
+                return new PackedDictionary(buffer);
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("Corrupt dictionary snapshot " + path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+}
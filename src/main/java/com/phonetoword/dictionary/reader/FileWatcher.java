@@ -0,0 +1,84 @@
+package com.phonetoword.dictionary.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directory of a file on a background thread, and runs an action once the file has changed and then been
+ * left alone for a moment, so that a file still being written is not read half way.
+ */
+final class FileWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileWatcher.class);
+    private static final long QUIET_PERIOD_MILLIS = 200;
+
+    private final Path path;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread watcher;
+
+    /**
+     * Start watching the file.
+     *
+     * @param path absolute path of the file
+     * @param threadName name of the background thread
+     * @param onChange run on the background thread after every change
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    FileWatcher(Path path, String threadName, Runnable onChange) throws IOException {
+        this.path = path;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcher = new Thread(this::watch, threadName);
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * Stop watching the file.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (hasChanged(watchService.take())) {
+                    // Wait for the writes to stop, so that a file still being written is not read
+                    WatchKey key;
+                    while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        hasChanged(key);
+                    }
+                    onChange.run();
+                }
+            }
+        } catch (final ClosedWatchServiceException | InterruptedException e) {
+            LOGGER.debug("Stopped watching {}.", path);
+        }
+    }
+
+    private boolean hasChanged(WatchKey key) {
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || path.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+}
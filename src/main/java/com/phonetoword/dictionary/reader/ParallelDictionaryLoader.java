@@ -0,0 +1,173 @@
+package com.phonetoword.dictionary.reader;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.TrieDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a large word list on a pool of threads.
+ * <p>
+ * The file is cut into chunks of roughly equal size, each ending at a line break, and every chunk is memory mapped,
+ * decoded as UTF-8 and turned into a shard of words by its own task. A line break is never part of a multi-byte
+ * character, so every chunk decodes on its own. The characters of a line are normalised through the {@link Keypad}
+ * as {@link Keypad#normalise(CharSequence)} does, without a regular expression or an intermediate String per line.
+ * Every shard drops its own duplicates.
+ * <p>
+ * The shards are then added to a single dictionary one after the other, in file order, on the calling thread. The
+ * words of a number are kept in the order they were added and a word that repeats an earlier shard must be dropped,
+ * so this part stays sequential; it only walks the trie, the parsing having been done in parallel. The result is
+ * exactly the dictionary, down to the order of the words of each number, that {@link DictionaryReader#load(Path,
+ * Keypad)} builds from the same file. The one difference is a file that is not valid UTF-8, which fails with a
+ * {@link java.nio.charset.MalformedInputException} thrown as it is rather than wrapped in an
+ * {@link UncheckedIOException}.
+ */
+final class ParallelDictionaryLoader {
+
+    static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    private static final char LINE_BREAK = '\n';
+    private static final char CARRIAGE_RETURN = '\r';
+    private static final int SCAN_BYTES = 256;
+    private static final int INITIAL_LINE_LENGTH = 64;
+
+    private ParallelDictionaryLoader() {}
+
+    static TrieDictionary load(Path path, Keypad keypad, ForkJoinPool pool, int chunkBytes) throws IOException {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long[] bounds = chunkBounds(channel, chunkBytes);
+            final List<Callable<Shard>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                final long start = bounds[i];
+                final long end = bounds[i + 1];
+                tasks.add(() -> readShard(channel, start, end, keypad));
+            }
+
+            final TrieDictionary dictionary = new TrieDictionary();
+            try {
+                for (final Future<Shard> future : pool.invokeAll(tasks)) {
+                    final Shard shard = Futures.getUnchecked(future);
+                    for (int i = 0; i < shard.words.size(); i++) {
+                        dictionary.addWord(shard.numbers.get(i), shard.words.get(i));
+                    }
+                }
+            } catch (final UncheckedExecutionException e) {
+                // A shard that could not be read or decoded
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
+            }
+            return dictionary;
+        }
+    }
+
+    /**
+     * Offsets where the chunks start, each just after a line break, followed by the size of the file.
+     */
+    private static long[] chunkBounds(FileChannel channel, int chunkBytes) throws IOException {
+        final long size = channel.size();
+        long[] bounds = new long[16];
+        int count = 1;
+        long start = 0;
+        final ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+        while (start + chunkBytes < size) {
+            long end = size;
+            long position = start + chunkBytes;
+            search: while (position < size) {
+                scan.clear();
+                final int read = channel.read(scan, position);
+                for (int i = 0; i < read; i++) {
+                    if (scan.get(i) == LINE_BREAK) {
+                        end = position + i + 1;
+                        break search;
+                    }
+                }
+                position += read;
+            }
+            if (count + 1 >= bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[count++] = end;
+            start = end;
+        }
+        if (bounds[count - 1] != size) {
+            bounds[count++] = size;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static Shard readShard(FileChannel channel, long start, long end, Keypad keypad) {
+        final CharBuffer chars;
+        try {
+            final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            // Malformed input is reported, as it is by Files.newBufferedReader
+            chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final Shard shard = new Shard();
+        final Set<String> seen = new HashSet<>();
+        char[] word = new char[INITIAL_LINE_LENGTH];
+        char[] number = new char[INITIAL_LINE_LENGTH];
+        int length = 0;
+        final int limit = chars.limit();
+        for (int i = 0; i <= limit; i++) {
+            final char c = i < limit ? chars.get(i) : LINE_BREAK;
+            // A carriage return ends a line too, as it does for BufferedReader
+            if (c == LINE_BREAK || c == CARRIAGE_RETURN) {
+                if (length > 0) {
+                    final String normalised = new String(word, 0, length);
+                    if (seen.add(normalised)) {
+                        // The number of the upper case word, as DictionaryReader takes it
+                        shard.words.add(normalised);
+                        shard.numbers.add(new String(number, 0, keypad.toDigits(normalised, number)));
+                    }
+                    length = 0;
+                }
+                continue;
+            }
+            if (keypad.digit(c) != Keypad.NO_DIGIT) {
+                if (length == word.length) {
+                    word = Arrays.copyOf(word, length * 2);
+                    number = Arrays.copyOf(number, length * 2);
+                }
+                word[length++] = Character.toUpperCase(c);
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * The distinct words of a chunk, in the order they first appear, with their numeric equivalents.
+     */
+    private static final class Shard {
+
+        private final List<String> words = new ArrayList<>();
+        private final List<String> numbers = new ArrayList<>();
+
+    }
+
+}
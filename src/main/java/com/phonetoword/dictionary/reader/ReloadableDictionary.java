@@ -0,0 +1,104 @@
+package com.phonetoword.dictionary.reader;
+
+import com.phonetoword.dictionary.Dictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A dictionary file that is loaded again whenever it changes, so that the dictionary can be updated without a
+ * restart.
+ * <p>
+ * The directory of the file is watched on a background thread. Once the file has changed and then been left alone for
+ * a moment, so that a file still being written is not read half way, a new dictionary is loaded next to the current
+ * one and published with a single reference swap. Readers never wait: {@link #get()} always returns a complete
+ * dictionary, conversions that already hold the previous one finish against it, and it is garbage collected once
+ * they are done. If the new file cannot be loaded or has no usable words, the current dictionary is kept.
+ */
+public class ReloadableDictionary implements Supplier<Dictionary>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadableDictionary.class);
+
+    /**
+     * Loads a dictionary file, e.g. <code>DictionaryReader::load</code>.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        Dictionary load(Path path) throws IOException;
+
+    }
+
+    private final Path path;
+    private final Loader loader;
+    private final AtomicReference<Dictionary> current;
+    private final AtomicLong generation = new AtomicLong();
+    private final FileWatcher watcher;
+
+    /**
+     * Load the file and start watching it.
+     *
+     * @param path dictionary file
+     * @param loader loads the file, initially and on every change
+     * @throws IOException if the file cannot be loaded or its directory cannot be watched
+     */
+    public ReloadableDictionary(Path path, Loader loader) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.loader = loader;
+        this.current = new AtomicReference<>(loader.load(this.path));
+        this.watcher = new FileWatcher(this.path, "dictionary-watcher", this::reload);
+    }
+
+    /**
+     * @return the current dictionary, which stays valid for as long as it is held even if a new one is published
+     */
+    @Override
+    public Dictionary get() {
+        return current.get();
+    }
+
+    /**
+     * @return number of times a new dictionary has been published since the file was first loaded
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Load the file now and publish it if it is usable.
+     *
+     * @return whether a new dictionary was published
+     */
+    public boolean reload() {
+        final Dictionary dictionary;
+        try {
+            dictionary = loader.load(path);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("Could not reload dictionary {}, keeping the current one: {}", path, e.getMessage());
+            return false;
+        }
+        if (dictionary.getTotalWordCount() == 0) {
+            LOGGER.error("Dictionary {} has no words that can be mapped to phone number, keeping the current one.",
+                    path);
+            return false;
+        }
+        current.set(dictionary);
+        generation.incrementAndGet();
+        LOGGER.info("Reloaded {} words from dictionary {}.", dictionary.getTotalWordCount(), path);
+        return true;
+    }
+
+    /**
+     * Stop watching the file. The current dictionary can still be used.
+     */
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.phonetoword.index;
+
+import com.google.common.collect.ImmutableList;
+
+import com.phonetoword.dictionary.Dictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Precomputed words of every block of digits of a fixed length, e.g. the last seven digits of a 1-800 number.
+ * <p>
+ * The index holds every block that can be spelled with dictionary words only, without any digit left as it is,
+ * together with its segmentations, so converting a number in that format is a binary search instead of a search of
+ * the dictionary. The segmentations of a block are stored as the edges of their graph rather than one by one: an edge
+ * is a run of digits spelled by a group of words, and only edges on a path through the whole block are kept. The
+ * number of segmentations grows exponentially with the block, the number of edges does not.
+ * <p>
+ * Only numbers of exactly one block are looked up. A longer number can be spelled in ways that cross the start of
+ * its last block or leave digits in front of it as they are, which the index does not hold, so it is converted as
+ * usual.
+ * <p>
+ * The index reflects the dictionary it was built from and has to be built again when the dictionary changes. Building
+ * is split over a pool of threads, see {@link #build(Dictionary, int, ForkJoinPool)}, and {@link #write(Path)} replaces
+ * an existing file in a single step, so processes that have the old file mapped keep using it undisturbed.
+ * <p>
+ * The image is laid out as follows, all values big endian:
+ * <ul>
+ * <li>header of six ints: block length, number of blocks, of edges, of word groups, of words, size of the word
+ * pool</li>
+ * <li><code>long[blocks]</code> every block as a decimal number, ascending</li>
+ * <li><code>int[blocks + 1]</code> index of the first edge of each block</li>
+ * <li><code>int[edges]</code> word group of each edge</li>
+ * <li><code>short[edges]</code> first digit and number of digits of each edge, five bits each, ordered by first
+ * digit and then number of digits, padded to a multiple of four bytes</li>
+ * <li><code>int[groups + 1]</code> index of the first word of each group, the words of a single dictionary
+ * number</li>
+ * <li><code>int[words + 1]</code> offset of each word in the word pool</li>
+ * <li>the word pool</li>
+ * </ul>
+ * Each word is stored once however many blocks use it.
+ */
+public final class VanityIndex {
+
+    /** Longest block that still fits a <code>long</code>. */
+    public static final int MAX_BLOCK_LENGTH = 18;
+
+    static final int MAGIC = 0x89564958;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    private static final int FILE_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final char SEPARATOR = '-';
+    private static final int SPAN_BITS = 5;
+    private static final int SPAN_MASK = (1 << SPAN_BITS) - 1;
+
+    private final ByteBuffer image;
+    private final int blockLength;
+    private final int blockCount;
+    private final int edgeCount;
+    private final int wordCount;
+    private final int blocks;
+    private final int firstEdges;
+    private final int edgeGroups;
+    private final int edgeSpans;
+    private final int firstWords;
+    private final int wordOffsets;
+    private final int wordPool;
+
+    /**
+     * Wrap an image laid out as described above, e.g. a memory mapped index file.
+     *
+     * @param image the image, from position zero to its limit. It must not be modified afterwards.
+     * @throws IllegalArgumentException if the buffer is too small for the sizes in its header
+     */
+    public VanityIndex(ByteBuffer image) {
+        this.image = image.slice();
+        if (this.image.limit() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Vanity index image is truncated");
+        }
+        blockLength = this.image.getInt(0);
+        blockCount = this.image.getInt(Integer.BYTES);
+        edgeCount = this.image.getInt(2 * Integer.BYTES);
+        final int groupCount = this.image.getInt(3 * Integer.BYTES);
+        wordCount = this.image.getInt(4 * Integer.BYTES);
+        blocks = HEADER_BYTES;
+        firstEdges = blocks + blockCount * Long.BYTES;
+        edgeGroups = firstEdges + (blockCount + 1) * Integer.BYTES;
+        edgeSpans = edgeGroups + edgeCount * Integer.BYTES;
+        firstWords = edgeSpans + align(edgeCount * Short.BYTES);
+        wordOffsets = firstWords + (groupCount + 1) * Integer.BYTES;
+        wordPool = wordOffsets + (wordCount + 1) * Integer.BYTES;
+        if (blockLength < 1 || blockLength > MAX_BLOCK_LENGTH
+                || this.image.limit() < wordPool + this.image.getInt(5 * Integer.BYTES)) {
+            throw new IllegalArgumentException("Vanity index image is truncated");
+        }
+    }
+
+    /**
+     * Build the index of a dictionary.
+     *
+     * @param dictionary dictionary to take words from
+     * @param blockLength number of digits of each block
+     * @param pool pool to split the work over
+     * @return the index, in a direct, off-heap buffer
+     * @throws IllegalArgumentException if the block length is not between 1 and {@link #MAX_BLOCK_LENGTH}
+     */
+    public static VanityIndex build(Dictionary dictionary, int blockLength, ForkJoinPool pool) {
+        if (blockLength < 1 || blockLength > MAX_BLOCK_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Block length must be between 1 and " + MAX_BLOCK_LENGTH + ": " + blockLength);
+        }
+        return new VanityIndex(VanityIndexBuilder.build(dictionary, blockLength, pool));
+    }
+
+    /**
+     * Map an index file written by {@link #write(Path)}. Nothing is parsed or copied onto the heap.
+     *
+     * @param path index file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static VanityIndex load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < FILE_HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a vanity index: " + path);
+            }
+            if (buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Unsupported vanity index version " + buffer.getInt(Integer.BYTES) + " in "
+                        + path + ", please build it again");
+            }
+            buffer.position(FILE_HEADER_BYTES);
+            try {
+                return new VanityIndex(buffer);
+            } catch (final IllegalArgumentException e) {
+                throw new IOException("Corrupt vanity index " + path + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write the index to a file, replacing any previous one in a single step.
+     *
+     * @param path file to write to
+     * @throws IOException
+     */
+    public void write(Path path) throws IOException {
+        final Path absolute = path.toAbsolutePath();
+        final Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer body = image.asReadOnlyBuffer();
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[] {header, body});
+                }
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Look a number up.
+     *
+     * @param digits phone number made up of digits only
+     * @return every segmentation of the number that leaves no digit as it is, in the order the converter gives them,
+     *         or <code>null</code> if the number is not a single block and so has to be converted instead
+     */
+    public List<String> lookup(String digits) {
+        if (digits.length() != blockLength) {
+            return null;
+        }
+        final int block = find(Long.parseLong(digits));
+        if (block < 0) {
+            return ImmutableList.of();
+        }
+        final ImmutableList.Builder<String> words = ImmutableList.builder();
+        final StringBuilder word = new StringBuilder(digits.length() * 2);
+        walk(image.getInt(firstEdges + block * Integer.BYTES), image.getInt(firstEdges + (block + 1) * Integer.BYTES),
+                0, word, words);
+        return words.build();
+    }
+
+    /**
+     * @return number of digits of each block
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * @return number of blocks that can be spelled with words
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return number of edges of all blocks together
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return number of distinct words used by the blocks
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return index of the block, or a negative number if it has no segmentations
+     */
+    private int find(long block) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            final int middle = low + high >>> 1;
+            final long value = image.getLong(blocks + middle * Long.BYTES);
+            if (value < block) {
+                low = middle + 1;
+            } else if (value > block) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Append every word that starts at a position of the block, and carry on after it, until the block is spelled.
+     */
+    private void walk(int firstEdge, int lastEdge, int position, StringBuilder word,
+            ImmutableList.Builder<String> words) {
+        if (position == blockLength) {
+            words.add(word.toString());
+            return;
+        }
+        final int length = word.length();
+        for (int edge = firstEdge; edge < lastEdge; edge++) {
+            final int span = image.getShort(edgeSpans + edge * Short.BYTES);
+            if (span >>> SPAN_BITS < position) {
+                continue;
+            }
+            if (span >>> SPAN_BITS > position) {
+                // Edges are ordered by their first digit
+                break;
+            }
+            final int group = image.getInt(edgeGroups + edge * Integer.BYTES);
+            final int lastWord = image.getInt(firstWords + (group + 1) * Integer.BYTES);
+            for (int id = image.getInt(firstWords + group * Integer.BYTES); id < lastWord; id++) {
+                if (length > 0) {
+                    word.append(SEPARATOR);
+                }
+                appendWord(id, word);
+                walk(edge + 1, lastEdge, position + (span & SPAN_MASK), word, words);
+                word.setLength(length);
+            }
+        }
+    }
+
+    private void appendWord(int id, StringBuilder word) {
+        final int start = image.getInt(wordOffsets + id * Integer.BYTES);
+        final byte[] bytes = new byte[image.getInt(wordOffsets + (id + 1) * Integer.BYTES) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = image.get(wordPool + start + i);
+        }
+        word.append(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return first digit and number of digits of an edge, packed as stored in the image
+     */
+    static short span(int start, int length) {
+        return (short) (start << SPAN_BITS | length);
+    }
+
+    static int align(int bytes) {
+        return bytes + 3 & ~3;
+    }
+
+}
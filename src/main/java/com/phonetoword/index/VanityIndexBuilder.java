@@ -0,0 +1,318 @@
+package com.phonetoword.index;
+
+import com.google.common.util.concurrent.Futures;
+
+import com.phonetoword.dictionary.Dictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the image of a {@link VanityIndex} on a pool of threads.
+ * <p>
+ * Blocks are enumerated depth first, one digit at a time, in ascending order. Alongside the digits the search keeps
+ * its frontier: the trie nodes of every word still being spelled, starting at any earlier digit, and whether some word
+ * ends exactly at the current digit, in which case a new word may start at the next one. A digit that leaves the
+ * frontier empty cannot be part of any covered block, so its whole subtree is skipped, and a block is only complete
+ * if a word ends at its last digit. Since every node in the frontier started at a different digit, it never holds
+ * more nodes than the block has digits.
+ * <p>
+ * The first {@link #SPLIT_DIGITS} digits are enumerated up front and every prefix that survives is searched by its
+ * own task. The tasks return their blocks in ascending order, so joining them in the order of their prefixes gives
+ * every block sorted without any further work.
+ */
+final class VanityIndexBuilder {
+
+    static final int SPLIT_DIGITS = 2;
+
+    private static final int RADIX = 10;
+
+    private final Dictionary dictionary;
+    private final int blockLength;
+
+    private VanityIndexBuilder(Dictionary dictionary, int blockLength) {
+        this.dictionary = dictionary;
+        this.blockLength = blockLength;
+    }
+
+    static ByteBuffer build(Dictionary dictionary, int blockLength, ForkJoinPool pool) {
+        final VanityIndexBuilder builder = new VanityIndexBuilder(dictionary, blockLength);
+        final List<Callable<Part>> tasks = new ArrayList<>();
+        builder.split(new Search(blockLength), 0, Math.min(SPLIT_DIGITS, blockLength), tasks);
+        final List<Part> parts = new ArrayList<>(tasks.size());
+        for (final Future<Part> future : pool.invokeAll(tasks)) {
+            parts.add(Futures.getUnchecked(future));
+        }
+        return builder.pack(parts);
+    }
+
+    /**
+     * Walk the first digits and queue a task for every prefix that can still be covered.
+     */
+    private void split(Search search, int depth, int splitDepth, List<Callable<Part>> tasks) {
+        if (depth == splitDepth) {
+            final Search seed = search.copy(depth);
+            tasks.add(() -> {
+                final Part part = new Part(blockLength);
+                enumerate(seed, depth, part);
+                return part;
+            });
+            return;
+        }
+        for (char digit = '0'; digit < '0' + RADIX; digit++) {
+            if (search.step(dictionary, depth, digit)) {
+                split(search, depth + 1, splitDepth, tasks);
+            }
+        }
+    }
+
+    private void enumerate(Search search, int depth, Part part) {
+        if (depth == blockLength) {
+            if (search.boundary[depth]) {
+                addBlock(search.digits, part);
+            }
+            return;
+        }
+        for (char digit = '0'; digit < '0' + RADIX; digit++) {
+            if (search.step(dictionary, depth, digit)) {
+                enumerate(search, depth + 1, part);
+            }
+        }
+    }
+
+    /**
+     * Add a block with the edges of its segmentations: every dictionary number that starts where a segmentation can
+     * reach and ends where one can be completed. They are added by start and then by length, the order the converter
+     * tries words in.
+     */
+    private void addBlock(char[] digits, Part part) {
+        final int[] nodes = part.nodes;
+        final boolean[] viable = part.viable;
+        final boolean[] reached = part.reached;
+        // nodes[start * blockLength + length - 1] is the node of the digits from start on, if it has words
+        Arrays.fill(nodes, Dictionary.NO_NODE);
+        for (int start = 0; start < blockLength; start++) {
+            int node = Dictionary.ROOT;
+            for (int end = start; end < blockLength && node != Dictionary.NO_NODE; end++) {
+                node = dictionary.next(node, digits[end]);
+                if (node != Dictionary.NO_NODE && dictionary.getWordCount(node) > 0) {
+                    nodes[start * blockLength + end - start] = node;
+                }
+            }
+        }
+        Arrays.fill(viable, false);
+        viable[blockLength] = true;
+        for (int start = blockLength - 1; start >= 0; start--) {
+            for (int length = 1; start + length <= blockLength && !viable[start]; length++) {
+                viable[start] = nodes[start * blockLength + length - 1] != Dictionary.NO_NODE
+                        && viable[start + length];
+            }
+        }
+        Arrays.fill(reached, false);
+        reached[0] = true;
+        part.startBlock(Long.parseLong(new String(digits)));
+        for (int start = 0; start < blockLength; start++) {
+            if (!reached[start]) {
+                continue;
+            }
+            for (int length = 1; start + length <= blockLength; length++) {
+                final int node = nodes[start * blockLength + length - 1];
+                if (node != Dictionary.NO_NODE && viable[start + length]) {
+                    reached[start + length] = true;
+                    part.addEdge(node, start, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Give every dictionary number used a group of consecutive word ids, in order of first use, and lay the parts
+     * out one after the other.
+     */
+    private ByteBuffer pack(List<Part> parts) {
+        int blocks = 0;
+        int edges = 0;
+        for (final Part part : parts) {
+            blocks += part.blockCount;
+            edges += part.edgeCount;
+        }
+
+        final Map<Integer, Integer> groups = new HashMap<>();
+        final List<Integer> firstWords = new ArrayList<>();
+        final List<byte[]> words = new ArrayList<>();
+        final int[] edgeGroups = new int[edges];
+        int poolSize = 0;
+        int edge = 0;
+        for (final Part part : parts) {
+            for (int i = 0; i < part.edgeCount; i++) {
+                final Integer node = part.edgeNodes[i];
+                Integer group = groups.get(node);
+                if (group == null) {
+                    group = firstWords.size();
+                    groups.put(node, group);
+                    firstWords.add(words.size());
+                    for (int w = 0; w < dictionary.getWordCount(node); w++) {
+                        final byte[] word = dictionary.getWord(node, w).getBytes(StandardCharsets.UTF_8);
+                        words.add(word);
+                        poolSize += word.length;
+                    }
+                }
+                edgeGroups[edge++] = group;
+            }
+        }
+        firstWords.add(words.size());
+
+        final ByteBuffer image = ByteBuffer.allocateDirect(VanityIndex.HEADER_BYTES + blocks * Long.BYTES
+                + (blocks + 1 + edges) * Integer.BYTES + VanityIndex.align(edges * Short.BYTES)
+                + (firstWords.size() + words.size() + 1) * Integer.BYTES + poolSize);
+        image.putInt(blockLength).putInt(blocks).putInt(edges).putInt(firstWords.size() - 1).putInt(words.size())
+                .putInt(poolSize);
+        for (final Part part : parts) {
+            for (int i = 0; i < part.blockCount; i++) {
+                image.putLong(part.blocks[i]);
+            }
+        }
+        int firstEdge = 0;
+        for (final Part part : parts) {
+            for (int i = 0; i < part.blockCount; i++) {
+                image.putInt(firstEdge + part.firstEdges[i]);
+            }
+            firstEdge += part.edgeCount;
+        }
+        image.putInt(firstEdge);
+        for (final int group : edgeGroups) {
+            image.putInt(group);
+        }
+        for (final Part part : parts) {
+            for (int i = 0; i < part.edgeCount; i++) {
+                image.putShort(part.edgeSpans[i]);
+            }
+        }
+        image.position(image.position() + VanityIndex.align(edges * Short.BYTES) - edges * Short.BYTES);
+        for (final int firstWord : firstWords) {
+            image.putInt(firstWord);
+        }
+        int offset = 0;
+        for (final byte[] word : words) {
+            image.putInt(offset);
+            offset += word.length;
+        }
+        image.putInt(offset);
+        for (final byte[] word : words) {
+            image.put(word);
+        }
+        image.flip();
+        return image;
+    }
+
+    /**
+     * The digits of the current block and the frontier after each of them.
+     */
+    private static final class Search {
+
+        private final char[] digits;
+        /** Nodes of the words still being spelled after each digit, <code>nodes[depth][0..counts[depth]]</code>. */
+        private final int[][] nodes;
+        private final int[] counts;
+        /** Whether a word ends after each digit, so that the next digit may start a new one. */
+        private final boolean[] boundary;
+
+        Search(int blockLength) {
+            digits = new char[blockLength];
+            nodes = new int[blockLength + 1][blockLength];
+            counts = new int[blockLength + 1];
+            boundary = new boolean[blockLength + 1];
+            // Before the first digit, the first word may start
+            boundary[0] = true;
+        }
+
+        /**
+         * Extend the block by a digit.
+         *
+         * @return whether any word can still cover the digit
+         */
+        boolean step(Dictionary dictionary, int depth, char digit) {
+            final int[] from = nodes[depth];
+            final int[] to = nodes[depth + 1];
+            int count = 0;
+            boolean ends = false;
+            for (int i = boundary[depth] ? -1 : 0; i < counts[depth]; i++) {
+                final int node = dictionary.next(i < 0 ? Dictionary.ROOT : from[i], digit);
+                if (node != Dictionary.NO_NODE) {
+                    // Each node started at a different digit, so they are all distinct
+                    to[count++] = node;
+                    ends |= dictionary.getWordCount(node) > 0;
+                }
+            }
+            counts[depth + 1] = count;
+            boundary[depth + 1] = ends;
+            digits[depth] = digit;
+            return count > 0;
+        }
+
+        Search copy(int depth) {
+            final Search copy = new Search(digits.length);
+            System.arraycopy(digits, 0, copy.digits, 0, depth);
+            for (int i = 0; i <= depth; i++) {
+                System.arraycopy(nodes[i], 0, copy.nodes[i], 0, counts[i]);
+                copy.counts[i] = counts[i];
+                copy.boundary[i] = boundary[i];
+            }
+            return copy;
+        }
+
+    }
+
+    /**
+     * The blocks found by one task with their edges, and the scratch space to find them in.
+     */
+    private static final class Part {
+
+        private long[] blocks = new long[16];
+        private int[] firstEdges = new int[16];
+        private int blockCount;
+        private int[] edgeNodes = new int[64];
+        private short[] edgeSpans = new short[64];
+        private int edgeCount;
+
+        private final int[] nodes;
+        private final boolean[] viable;
+        private final boolean[] reached;
+
+        Part(int blockLength) {
+            nodes = new int[blockLength * blockLength];
+            viable = new boolean[blockLength + 1];
+            reached = new boolean[blockLength + 1];
+        }
+
+        void startBlock(long block) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+                firstEdges = Arrays.copyOf(firstEdges, blockCount * 2);
+            }
+            blocks[blockCount] = block;
+            firstEdges[blockCount] = edgeCount;
+            blockCount++;
+        }
+
+        void addEdge(int node, int start, int length) {
+            if (edgeCount == edgeNodes.length) {
+                edgeNodes = Arrays.copyOf(edgeNodes, edgeCount * 2);
+                edgeSpans = Arrays.copyOf(edgeSpans, edgeCount * 2);
+            }
+            edgeNodes[edgeCount] = node;
+            edgeSpans[edgeCount] = VanityIndex.span(start, length);
+            edgeCount++;
+        }
+
+    }
+
+}
@@ -0,0 +1,332 @@
+package com.phonetoword.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.PackedDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latencies of the conversions, readable through JMX and logged periodically.
+ * <p>
+ * Recording is meant for the hot path: counters are {@link LongAdder}s, which threads update without contending with
+ * each other, latencies go to a fixed array of buckets, and nothing is allocated or locked. The search itself only
+ * bumps plain int fields of its own, which are added here once per number. To turn metrics off completely, pass no
+ * metrics to the converter and none of this code runs at all.
+ */
+public class ConversionMetrics implements ConversionMetricsMXBean, AutoCloseable {
+
+    public static final String OBJECT_NAME = "com.phonetoword:type=ConversionMetrics";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionMetrics.class);
+    /** Rough sizes of the objects of a {@link com.phonetoword.dictionary.TrieDictionary}, for the estimate. */
+    private static final int NODE_BYTES = 48;
+    private static final int NUMBER_BYTES = 40;
+    private static final int WORD_BYTES = 44;
+    private static final int NUMBERS = 0;
+    private static final int ESTIMATED_BYTES = 1;
+
+    private final long createdNanos = System.nanoTime();
+    private final LongAdder numbers = new LongAdder();
+    private final LongAdder words = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private final LongAdder states = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private volatile DictionaryStats dictionary = new DictionaryStats(0, null);
+    private final LongAdder dictionaryLoads = new LongAdder();
+    private ObjectName registeredName;
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Record the work of one segmentation search.
+     *
+     * @param statesVisited states of the segmentation graph solved
+     * @param edgesVisited edges of the segmentation graph
+     * @param dictionaryLookups steps taken through the dictionary
+     */
+    public void recordSearch(int statesVisited, int edgesVisited, int dictionaryLookups) {
+        states.add(statesVisited);
+        edges.add(edgesVisited);
+        lookups.add(dictionaryLookups);
+    }
+
+    public void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    public void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * Record a number once all the words that were wanted have been handed out.
+     *
+     * @param startNanos {@link System#nanoTime()} when the conversion started
+     * @param wordCount words handed out for the number
+     */
+    public void recordNumber(long startNanos, long wordCount) {
+        latencies.record(System.nanoTime() - startNanos);
+        numbers.increment();
+        words.add(wordCount);
+    }
+
+    /**
+     * Record a number that ran out of its search budget.
+     */
+    public void recordTruncated() {
+        truncated.increment();
+    }
+
+    /**
+     * Record a newly loaded dictionary. Its words are counted by the dictionary already; its numbers and size are only
+     * worked out, with a walk of every word, the first time they are read, so loading never waits for them.
+     *
+     * @param loaded the dictionary
+     * @param loadNanos time taken to load it
+     */
+    public void recordDictionaryLoad(Dictionary loaded, long loadNanos) {
+        dictionary = new DictionaryStats(TimeUnit.NANOSECONDS.toMillis(loadNanos), loaded);
+        dictionaryLoads.increment();
+    }
+
+    @Override
+    public long getNumbersConverted() {
+        return numbers.sum();
+    }
+
+    @Override
+    public long getWordsEmitted() {
+        return words.sum();
+    }
+
+    @Override
+    public long getNumbersTruncated() {
+        return truncated.sum();
+    }
+
+    @Override
+    public long getStatesVisited() {
+        return states.sum();
+    }
+
+    @Override
+    public long getEdgesVisited() {
+        return edges.sum();
+    }
+
+    @Override
+    public long getDictionaryLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        final long hits = cacheHits.sum();
+        final long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : hits / (double) total;
+    }
+
+    @Override
+    public double getThroughputPerSecond() {
+        final long elapsed = System.nanoTime() - createdNanos;
+        return elapsed <= 0 ? 0 : numbers.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @Override
+    public long getLatencyCount() {
+        return latencies.count();
+    }
+
+    @Override
+    public double getLatencyMeanMicros() {
+        return latencies.meanMicros();
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latencies.percentileMicros(50);
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latencies.percentileMicros(99);
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latencies.percentileMicros(99.9);
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latencies.maxMicros();
+    }
+
+    @Override
+    public long getDictionaryLoadMillis() {
+        return dictionary.loadMillis;
+    }
+
+    @Override
+    public long getDictionaryWords() {
+        return dictionary.words;
+    }
+
+    @Override
+    public long getDictionaryNumbers() {
+        return dictionary.sizes()[NUMBERS];
+    }
+
+    @Override
+    public long getDictionaryEstimatedBytes() {
+        return dictionary.sizes()[ESTIMATED_BYTES];
+    }
+
+    @Override
+    public long getDictionaryLoads() {
+        return dictionaryLoads.sum();
+    }
+
+    /**
+     * @return one line summary of every metric
+     */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "%d numbers (%.1f/s, %d truncated), %d words, %d states, %d edges, %d dictionary lookups, "
+                        + "cache hit ratio %.3f, latency us mean %.1f p50 %.1f p99 %.1f p99.9 %.1f max %.1f, "
+                        + "dictionary %d words, %d numbers, ~%d bytes, loaded in %d ms",
+                getNumbersConverted(), getThroughputPerSecond(), getNumbersTruncated(), getWordsEmitted(),
+                getStatesVisited(), getEdgesVisited(), getDictionaryLookups(), getCacheHitRatio(),
+                getLatencyMeanMicros(), getLatencyP50Micros(), getLatencyP99Micros(), getLatencyP999Micros(),
+                getLatencyMaxMicros(), getDictionaryWords(), getDictionaryNumbers(), getDictionaryEstimatedBytes(),
+                getDictionaryLoadMillis());
+    }
+
+    /**
+     * Publish the metrics on the platform MBean server under {@link #OBJECT_NAME}, until closed.
+     *
+     * @throws JMException if they cannot be registered, e.g. because other metrics already are
+     */
+    public synchronized void register() throws JMException {
+        final ObjectName name = new ObjectName(OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        registeredName = name;
+    }
+
+    /**
+     * Log the summary on a background thread, until closed.
+     *
+     * @param intervalSeconds time between two log lines
+     */
+    public synchronized void logEvery(long intervalSeconds) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalSeconds);
+        }
+        if (reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("metrics-reporter").setDaemon(true).build());
+            reporter.scheduleAtFixedRate(() -> LOGGER.info("Metrics: {}", summary()), intervalSeconds,
+                    intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop logging and unregister from the MBean server. The metrics can still be read and recorded.
+     */
+    @Override
+    public synchronized void close() throws JMException {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        if (registeredName != null) {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(registeredName);
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Load time and word count of a dictionary, and its numbers and size once they have been worked out.
+     */
+    private static final class DictionaryStats {
+
+        private final long loadMillis;
+        private final long words;
+        private Dictionary loaded;
+        private long[] sizes;
+
+        DictionaryStats(long loadMillis, Dictionary loaded) {
+            this.loadMillis = loadMillis;
+            this.words = loaded == null ? 0 : loaded.getTotalWordCount();
+            this.loaded = loaded;
+        }
+
+        /**
+         * @return number of numbers and estimated bytes, walking the dictionary the first time and then letting it go
+         */
+        synchronized long[] sizes() {
+            if (sizes == null) {
+                sizes = loaded == null ? new long[2] : measure(loaded);
+                loaded = null;
+            }
+            return sizes;
+        }
+
+        private static long[] measure(Dictionary loaded) {
+            final long[] counts = new long[4];
+            final StringBuilder previous = new StringBuilder();
+            loaded.forEachWord((number, word) -> {
+                counts[0]++;
+                counts[1] += word.length();
+                if (!number.contentEquals(previous)) {
+                    // Numbers come in trie order, so every digit past the prefix shared with the previous one is a node
+                    int shared = 0;
+                    while (shared < previous.length() && shared < number.length()
+                            && previous.charAt(shared) == number.charAt(shared)) {
+                        shared++;
+                    }
+                    counts[2]++;
+                    counts[3] += number.length() - shared;
+                    previous.setLength(0);
+                    previous.append(number);
+                }
+            });
+            final long estimatedBytes = loaded instanceof PackedDictionary
+                    ? ((PackedDictionary) loaded).image().capacity()
+                    : (counts[3] + 1) * NODE_BYTES + counts[2] * NUMBER_BYTES + counts[0] * WORD_BYTES + counts[1] * 2;
+            final long[] sizes = new long[2];
+            sizes[NUMBERS] = counts[2];
+            sizes[ESTIMATED_BYTES] = estimatedBytes;
+            return sizes;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.phonetoword.metrics;
+
+/**
+ * Management interface of {@link ConversionMetrics}, as it is seen through JMX.
+ */
+public interface ConversionMetricsMXBean {
+
+    /**
+     * @return numbers converted, including those answered from the cache
+     */
+    long getNumbersConverted();
+
+    /**
+     * @return numbers that ran out of their search budget
+     */
+    long getNumbersTruncated();
+
+    /**
+     * @return words handed out for all numbers
+     */
+    long getWordsEmitted();
+
+    /**
+     * @return segmentation graph states solved, two per digit of every number that was not in the cache
+     */
+    long getStatesVisited();
+
+    /**
+     * @return edges of the segmentation graphs, one per word or raw digit that leads to a complete segmentation
+     */
+    long getEdgesVisited();
+
+    /**
+     * @return steps taken through the dictionary trie
+     */
+    long getDictionaryLookups();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * @return share of lookups answered from the result cache, 0 if there were none
+     */
+    double getCacheHitRatio();
+
+    /**
+     * @return numbers converted per second since the metrics were created
+     */
+    double getThroughputPerSecond();
+
+    /**
+     * @return number of conversions in the latency histogram
+     */
+    long getLatencyCount();
+
+    double getLatencyMeanMicros();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    double getLatencyP999Micros();
+
+    double getLatencyMaxMicros();
+
+    /**
+     * @return time taken to load the current dictionary
+     */
+    long getDictionaryLoadMillis();
+
+    long getDictionaryWords();
+
+    /**
+     * @return distinct numbers the words of the dictionary map to
+     */
+    long getDictionaryNumbers();
+
+    /**
+     * @return rough size of the dictionary in bytes
+     */
+    long getDictionaryEstimatedBytes();
+
+    /**
+     * @return number of dictionaries loaded, 1 plus the number of reloads
+     */
+    long getDictionaryLoads();
+
+}
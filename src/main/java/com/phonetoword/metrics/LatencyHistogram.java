@@ -0,0 +1,116 @@
+package com.phonetoword.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size, lock free histogram of durations.
+ * <p>
+ * Durations in nanoseconds are counted in logarithmic buckets: one group of buckets per power of two, each split into
+ * {@value #SUB_BUCKETS} linear buckets, so that every bucket is within an eighth of the durations it counts whatever
+ * their size: a bucket is as wide as an eighth of the power of two its durations start from. Recording finds the bucket with a few bit operations and increments one counter, with no allocation or
+ * lock, and percentiles are read by walking the counters.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = Long.SIZE * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos duration to record, negative durations are recorded as 0
+     */
+    void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(value));
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return number of recorded durations
+     */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return mean of the recorded durations in microseconds, 0 if there are none
+     */
+    double meanMicros() {
+        final long count = count();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count / TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * @return longest recorded duration in microseconds
+     */
+    double maxMicros() {
+        return maxNanos.get() / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile in microseconds, 0 if nothing was recorded
+     */
+    double percentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos.get()) / (double) TimeUnit.MICROSECONDS.toNanos(1);
+            }
+        }
+        return maxMicros();
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} have a bucket each. Larger ones go to the group of their highest bit, and
+     * within it to the sub-bucket of the next {@value #SUB_BUCKET_BITS} bits.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.phonetoword.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Just enough JSON for the {@link OutputFormat#JSON JSON output} and the conversion server: writing strings and
+ * reading an array of strings.
+ */
+public final class Json {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Json() {}
+
+    /**
+     * Write a string as a quoted JSON string.
+     *
+     * @param out writer to write to
+     * @param value string to write
+     * @throws IOException
+     */
+    public static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < ' ') {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Parse a JSON array of strings, e.g. <code>["1-800-CALL", "225563"]</code>.
+     *
+     * @param json text of the array
+     * @return strings in the array
+     * @throws IllegalArgumentException if the text is not an array of strings
+     */
+    public static List<String> parseStringArray(String json) {
+        final List<String> values = new ArrayList<>();
+        int i = skipWhitespace(json, 0);
+        i = expect(json, i, '[');
+        i = skipWhitespace(json, i);
+        if (i < json.length() && json.charAt(i) == ']') {
+            i++;
+        } else {
+            while (true) {
+                final StringBuilder value = new StringBuilder();
+                i = readString(json, skipWhitespace(json, i), value);
+                values.add(value.toString());
+                i = skipWhitespace(json, i);
+                if (i < json.length() && json.charAt(i) == ',') {
+                    i++;
+                } else {
+                    i = expect(json, i, ']');
+                    break;
+                }
+            }
+        }
+        if (skipWhitespace(json, i) != json.length()) {
+            throw new IllegalArgumentException("Unexpected content after the array at position " + i);
+        }
+        return values;
+    }
+
+    private static int readString(String json, int start, StringBuilder value) {
+        int i = expect(json, start, '"');
+        while (i < json.length()) {
+            final char c = json.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i == json.length()) {
+                break;
+            }
+            final char escaped = json.charAt(i++);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > json.length()) {
+                        throw new IllegalArgumentException("Truncated escape at position " + i);
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (final NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid escape at position " + i, e);
+                    }
+                    i += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string starting at position " + start);
+    }
+
+    private static int expect(String json, int i, char expected) {
+        if (i >= json.length() || json.charAt(i) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + i);
+        }
+        return i + 1;
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int i = start;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+}
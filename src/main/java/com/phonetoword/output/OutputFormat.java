@@ -0,0 +1,96 @@
+package com.phonetoword.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * The ways {@link ResultWriter} can lay out the words of a number. Words are made of the letters of the keypad, which
+ * a layout file may pick freely, so the JSON format escapes them.
+ */
+public enum OutputFormat {
+
+    /**
+     * The number followed by a colon, then one word per line and a blank line. A number that ran out of its search
+     * budget ends with a <code>(truncated)</code> line.
+     */
+    PLAIN {
+        @Override
+        void write(Writer out, String number, Iterator<String> words, boolean truncated) throws IOException {
+            out.write(number);
+            out.write(":\n");
+            while (words.hasNext()) {
+                out.write(words.next());
+                out.write('\n');
+            }
+            if (truncated) {
+                out.write("(truncated)\n");
+            }
+            out.write('\n');
+        }
+    },
+
+    /**
+     * One line per word: the number, a tab and the word. Numbers without words have no lines.
+     */
+    TSV {
+        @Override
+        void write(Writer out, String number, Iterator<String> words, boolean truncated) throws IOException {
+            while (words.hasNext()) {
+                out.write(number);
+                out.write('\t');
+                out.write(words.next());
+                out.write('\n');
+            }
+        }
+    },
+
+    /**
+     * One JSON object per number and line, e.g. <code>{"number":"225563","words":["CALL-ME"],"truncated":false}</code>.
+     */
+    JSON {
+        @Override
+        void write(Writer out, String number, Iterator<String> words, boolean truncated) throws IOException {
+            out.write("{\"number\":");
+            Json.writeString(out, number);
+            out.write(",\"words\":[");
+            boolean first = true;
+            while (words.hasNext()) {
+                if (!first) {
+                    out.write(',');
+                }
+                Json.writeString(out, words.next());
+                first = false;
+            }
+            out.write("],\"truncated\":");
+            out.write(Boolean.toString(truncated));
+            out.write("}\n");
+        }
+    };
+
+    /**
+     * Write the words of a number, as they are generated.
+     *
+     * @param out writer to write to
+     * @param number the number, reduced to its digits
+     * @param words the words of the number
+     * @param truncated whether the number ran out of its search budget
+     * @throws IOException
+     */
+    abstract void write(Writer out, String number, Iterator<String> words, boolean truncated) throws IOException;
+
+    /**
+     * @param name name of a format in any case, e.g. <code>tsv</code>
+     * @return the format
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static OutputFormat parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown output format " + name + ", expected plain, tsv or json", e);
+        }
+    }
+
+}
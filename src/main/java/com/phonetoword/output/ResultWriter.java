@@ -0,0 +1,83 @@
+package com.phonetoword.output;
+
+import com.phonetoword.convertor.ResultSink;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Writes the words of every number straight to a stream or file, in one of the {@link OutputFormat}s.
+ * <p>
+ * Words are written one at a time as they are generated, into a large buffer that is only written out when it is
+ * full, so the words of a number are never joined into one String and millions of them cost a handful of system
+ * calls. Call {@link #flush()} to push out what is buffered, e.g. after each interactive number, and
+ * {@link #close()} when done. Numbers may be handed over from several threads at once; each one is written whole.
+ */
+public class ResultWriter implements ResultSink, Closeable, Flushable {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Writer out;
+    private final OutputFormat format;
+
+    /**
+     * @param out stream to write UTF-8 text to, closed with the writer
+     * @param format layout of the words
+     */
+    public ResultWriter(OutputStream out, OutputFormat format) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8), format);
+    }
+
+    /**
+     * @param out writer to write to, closed with this one
+     * @param format layout of the words
+     */
+    public ResultWriter(Writer out, OutputFormat format) {
+        this.out = new BufferedWriter(out, BUFFER_CHARS);
+        this.format = format;
+    }
+
+    /**
+     * @throws UncheckedIOException if the words cannot be written
+     */
+    @Override
+    public void accept(String number, Stream<String> words) {
+        accept(number, words, false);
+    }
+
+    /**
+     * @throws UncheckedIOException if the words cannot be written
+     */
+    @Override
+    public synchronized void accept(String number, Stream<String> words, boolean truncated) {
+        try {
+            format.write(out, number, words.iterator(), truncated);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write out everything buffered so far.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+}
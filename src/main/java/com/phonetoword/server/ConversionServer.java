@@ -0,0 +1,361 @@
+package com.phonetoword.server;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.output.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Serves conversions over HTTP, so that the dictionary is loaded once and shared by every request.
+ * <p>
+ * <code>GET /convert?number=1-800-CALL-ME</code> converts a single number and <code>POST /convert</code> converts a
+ * batch, given either as a JSON array of strings or as one number per line. Both take an optional
+ * <code>limit</code> parameter, and a server holding the dictionaries of several locales takes a <code>locale</code>
+ * parameter to pick one, the first locale by default. Both answer with JSON:
+ *
+ * <pre>
+ * {"number":"225563","words":["CALL-ME"],"truncated":false}
+ * {"results":[{"number":"225563","words":["CALL-ME"],"truncated":false}, ...]}
+ * </pre>
+ *
+ * Every request is limited in the number of words per number, the number of digits per number, the size of a batch
+ * and the time spent converting. Words are generated lazily, so a number stops being converted as soon as it reaches
+ * either limit, and <code>truncated</code> tells the client whether there were more words. Errors are answered with
+ * <code>{"error":"..."}</code> and a 4xx status.
+ * <p>
+ * Requests are handled on a fixed number of threads with a bounded queue. Once the queue is full, the thread that
+ * accepts connections handles the next request itself, which stops it from accepting more until it is done and leaves
+ * further clients waiting in the connection backlog.
+ */
+public class ConversionServer implements AutoCloseable {
+
+    static final String PATH = "/convert";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionServer.class);
+    private static final int QUEUED_PER_THREAD = 16;
+    private static final int MAX_DIGITS = 64;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final Map<String, NumberToWordConverter> converters;
+    private final NumberToWordConverter defaultConverter;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final int maxResults;
+    private final long timeoutNanos;
+
+    /**
+     * Bind the server. It does not accept requests until {@link #start()} is called.
+     *
+     * @param converter converter shared by all requests
+     * @param address address to listen on, port 0 for any free port
+     * @param threads number of threads to handle requests on
+     * @param maxResults maximum number of words returned for each number
+     * @param timeoutMillis maximum time spent converting the numbers of a single request
+     * @throws IOException if the address cannot be bound
+     */
+    public ConversionServer(NumberToWordConverter converter, InetSocketAddress address, int threads, int maxResults,
+            long timeoutMillis) throws IOException {
+        this(ImmutableMap.of("", converter), address, threads, maxResults, timeoutMillis);
+    }
+
+    /**
+     * Bind a server for several locales. It does not accept requests until {@link #start()} is called.
+     *
+     * @param converters converter of each locale, shared by all requests. The first one is used when a request does
+     *        not name a locale.
+     * @param address address to listen on, port 0 for any free port
+     * @param threads number of threads to handle requests on
+     * @param maxResults maximum number of words returned for each number
+     * @param timeoutMillis maximum time spent converting the numbers of a single request
+     * @throws IOException if the address cannot be bound
+     */
+    public ConversionServer(Map<String, NumberToWordConverter> converters, InetSocketAddress address, int threads,
+            int maxResults, long timeoutMillis) throws IOException {
+        if (converters.isEmpty()) {
+            throw new IllegalArgumentException("At least one converter is needed");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("Maximum number of results must be positive: " + maxResults);
+        }
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+        }
+        this.converters = ImmutableMap.copyOf(converters);
+        this.defaultConverter = this.converters.values().iterator().next();
+        this.maxResults = maxResults;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD),
+                new ThreadFactoryBuilder().setNameFormat("conversion-server-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return address the server is listening on, with the actual port if it was bound to port 0
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stop accepting requests, give the ones in progress a moment to finish and shut the threads down.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final List<String> numbers;
+            final boolean batch;
+            if (!PATH.equals(exchange.getRequestURI().getPath())) {
+                throw new RequestException(404, "Not found: " + exchange.getRequestURI().getPath());
+            }
+            final Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+            if ("GET".equals(exchange.getRequestMethod())) {
+                final String number = parameters.get("number");
+                if (isNullOrEmpty(number)) {
+                    throw new RequestException(400, "Please provide a number to convert");
+                }
+                numbers = new ArrayList<>();
+                numbers.add(number);
+                batch = false;
+            } else if ("POST".equals(exchange.getRequestMethod())) {
+                numbers = parseBatch(readBody(exchange));
+                batch = true;
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                throw new RequestException(405, "Method not allowed: " + exchange.getRequestMethod());
+            }
+            final NumberToWordConverter converter = converter(parameters.get("locale"));
+            final int limit = limit(parameters.get("limit"));
+            final List<String> digits = new ArrayList<>(numbers.size());
+            for (final String number : numbers) {
+                digits.add(validate(number));
+            }
+            respond(exchange, converter, digits, limit, batch);
+        } catch (final RequestException e) {
+            respondWithError(exchange, e.status, e.getMessage());
+        } catch (final RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+            respondWithError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Convert the numbers, streaming the response so that large results are never held in memory as a whole.
+     */
+    private void respond(HttpExchange exchange, NumberToWordConverter converter, List<String> numbers, int limit,
+            boolean batch) throws IOException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out =
+                new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            if (batch) {
+                out.write("{\"results\":[");
+            }
+            for (int i = 0; i < numbers.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeResult(out, converter, numbers.get(i), limit, deadline);
+            }
+            if (batch) {
+                out.write("]}");
+            }
+        }
+    }
+
+    private static void writeResult(Writer out, NumberToWordConverter converter, String number, int limit,
+            long deadline) throws IOException {
+        out.write("{\"number\":");
+        Json.writeString(out, number);
+        out.write(",\"words\":[");
+        // Closed once written, so that a number cut short is still recorded in the converter's metrics
+        try (Stream<String> stream = converter.convert(number)) {
+            final Iterator<String> words = stream.iterator();
+            int count = 0;
+            while (count < limit && System.nanoTime() - deadline < 0 && words.hasNext()) {
+                if (count++ > 0) {
+                    out.write(',');
+                }
+                Json.writeString(out, words.next());
+            }
+            out.write("],\"truncated\":");
+            out.write(Boolean.toString(words.hasNext()));
+        }
+        out.write('}');
+    }
+
+    private static void respondWithError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // The response has already started, all we can do is cut it short
+            return;
+        }
+        final StringWriter body = new StringWriter();
+        body.write("{\"error\":");
+        Json.writeString(body, message);
+        body.write('}');
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            final byte[] body = ByteStreams.toByteArray(ByteStreams.limit(in, MAX_BODY_BYTES + 1L));
+            if (body.length > MAX_BODY_BYTES) {
+                throw new RequestException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A batch is either a JSON array of strings or one number per line.
+     */
+    private static List<String> parseBatch(String body) {
+        final List<String> numbers;
+        if (body.trim().startsWith("[")) {
+            try {
+                numbers = Json.parseStringArray(body);
+            } catch (final IllegalArgumentException e) {
+                throw new RequestException(400, "Invalid JSON: " + e.getMessage());
+            }
+        } else {
+            numbers = Splitter.on('\n').trimResults().omitEmptyStrings().splitToList(body);
+        }
+        if (numbers.isEmpty()) {
+            throw new RequestException(400, "Please provide at least one number to convert");
+        }
+        if (numbers.size() > MAX_BATCH_SIZE) {
+            throw new RequestException(413, "A batch can hold at most " + MAX_BATCH_SIZE + " numbers");
+        }
+        return numbers;
+    }
+
+    private static String validate(String number) {
+        final String digits = NumberToWordConverter.keepOnlyDigits(number);
+        if (digits.isEmpty()) {
+            throw new RequestException(400, "Not a phone number: " + number);
+        }
+        if (digits.length() > MAX_DIGITS) {
+            throw new RequestException(400, "A number can have at most " + MAX_DIGITS + " digits: " + number);
+        }
+        return digits;
+    }
+
+    private NumberToWordConverter converter(String locale) {
+        if (locale == null) {
+            return defaultConverter;
+        }
+        final NumberToWordConverter converter = converters.get(locale);
+        if (converter == null) {
+            throw new RequestException(400, "Unknown locale: " + locale);
+        }
+        return converter;
+    }
+
+    private int limit(String value) {
+        if (value == null) {
+            return maxResults;
+        }
+        final int limit;
+        try {
+            limit = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new RequestException(400, "limit expects a positive number but got: " + value);
+        }
+        if (limit <= 0) {
+            throw new RequestException(400, "limit expects a positive number but got: " + value);
+        }
+        return Math.min(limit, maxResults);
+    }
+
+    private static Map<String, String> parameters(String query) throws UnsupportedEncodingException {
+        final Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (final String parameter : Splitter.on('&').omitEmptyStrings().split(query)) {
+            final int equals = parameter.indexOf('=');
+            final String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            final String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            try {
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8.name()),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8.name()));
+            } catch (final IllegalArgumentException e) {
+                throw new RequestException(400, "Invalid query parameter: " + parameter);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * A request the server refuses to convert, answered with the given status.
+     */
+    private static final class RequestException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+import com.phonetoword.convertor.BatchConverter;
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test parallel batch conversion.
+ */
+public class BatchConverterTest {
+
+    private static NumberToWordConverter numberToWordConverter;
+    private static Path testData;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        final Dictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        numberToWordConverter = new NumberToWordConverter(dictionary);
+        testData = Paths.get("src/test/resources/test-data.txt");
+    }
+
+    @Test
+    public void testOrderedMatchesSequential() throws IOException {
+        final List<String> expected = new ArrayList<>();
+        numberToWordConverter.process(testData,
+                (number, words) -> expected.add(number + "=" + words.collect(Collectors.toList())));
+
+        final List<String> actual = new ArrayList<>();
+        try (BatchConverter batchConverter = new BatchConverter(numberToWordConverter, 4, true)) {
+            batchConverter.process(Files.lines(testData),
+                    (number, words) -> actual.add(number + "=" + words.collect(Collectors.toList())));
+        }
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testUnorderedConvertsEveryNumber() throws IOException {
+        final Map<String, List<String>> expected = new LinkedHashMap<>();
+        numberToWordConverter.process(testData,
+                (number, words) -> expected.put(number, words.collect(Collectors.toList())));
+
+        final Map<String, List<String>> actual = new ConcurrentHashMap<>();
+        try (BatchConverter batchConverter = new BatchConverter(numberToWordConverter, 4, false)) {
+            batchConverter.process(Collections.nCopies(50, testData).stream().flatMap(BatchConverterTest::lines),
+                    (number, words) -> actual.put(number, words.collect(Collectors.toList())));
+        }
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testStreamsNumbersWithManyWords() {
+        final String number = Strings.repeat("2", 14);
+        final List<String> expected = ImmutableList.copyOf(numberToWordConverter.iterator(number));
+        assertThat(expected.size()).isGreaterThan(4096);
+
+        for (final boolean ordered : new boolean[] {true, false}) {
+            final List<List<String>> actual = new ArrayList<>();
+            try (BatchConverter batchConverter = new BatchConverter(numberToWordConverter, 2, ordered)) {
+                batchConverter.process(Stream.of(number, "2255", number), (n, words) -> {
+                    synchronized (actual) {
+                        actual.add(words.collect(Collectors.toList()));
+                    }
+                });
+            }
+
+            final List<List<String>> inOrder = ImmutableList.of(expected, ImmutableList.of("CALL"), expected);
+            if (ordered) {
+                assertThat(actual).isEqualTo(inOrder);
+            } else {
+                assertThat(actual).hasSize(3).hasSameElementsAs(inOrder);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoThreads() {
+        try (BatchConverter batchConverter = new BatchConverter(numberToWordConverter, 0, true)) {
+            batchConverter.process(Collections.<String>emptyList().stream(), (number, words) -> {});
+        }
+    }
+
+    private static Stream<String> lines(Path path) {
+        try {
+            return Files.lines(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ResultCache;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.metrics.ConversionMetrics;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Test recording conversion metrics.
+ */
+public class ConversionMetricsTest {
+
+    private static Dictionary dictionary;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+    }
+
+    @Test
+    public void testRecordsEveryWayOfConverting() {
+        final ConversionMetrics metrics = new ConversionMetrics();
+        final NumberToWordConverter converter = new NumberToWordConverter(() -> dictionary, null, metrics);
+
+        assertThat(converter.convert("225563").collect(Collectors.toList())).containsExactly("CALL-ME");
+        assertThat(converter.convertInParallel("22556322", ForkJoinPool.commonPool())).hasSize(8);
+        assertThat(converter.topK("22556322", 3)).hasSize(3);
+        converter.process(Arrays.asList("22556322").stream(), 2, (number, words) -> words.count());
+
+        assertThat(metrics.getNumbersConverted()).isEqualTo(4);
+        assertThat(metrics.getWordsEmitted()).isEqualTo(1 + 8 + 3 + 2);
+        assertThat(metrics.getStatesVisited()).isEqualTo(2 * (6 + 8 + 8 + 8));
+        assertThat(metrics.getEdgesVisited()).isPositive();
+        assertThat(metrics.getDictionaryLookups()).isPositive();
+        assertThat(metrics.getLatencyCount()).isEqualTo(4);
+        assertThat(metrics.getLatencyMaxMicros()).isGreaterThanOrEqualTo(metrics.getLatencyP50Micros());
+        assertThat(metrics.getThroughputPerSecond()).isPositive();
+    }
+
+    @Test
+    public void testRecordsNumberOnceWhenWordsRunOut() {
+        final ConversionMetrics metrics = new ConversionMetrics();
+        final NumberToWordConverter converter = new NumberToWordConverter(() -> dictionary, null, metrics);
+
+        final Iterator<String> words = converter.iterator("225563");
+        assertThat(words.next()).isEqualTo("CALL-ME");
+        assertThat(metrics.getNumbersConverted()).isZero();
+        assertThat(words.hasNext()).isFalse();
+        assertThat(words.hasNext()).isFalse();
+
+        assertThat(metrics.getNumbersConverted()).isEqualTo(1);
+        assertThat(metrics.getWordsEmitted()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRecordsCacheHitRatio() {
+        final ConversionMetrics metrics = new ConversionMetrics();
+        final NumberToWordConverter converter =
+                new NumberToWordConverter(() -> dictionary, new ResultCache(1000), metrics);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(converter.convert("225563").count()).isEqualTo(1);
+        }
+
+        assertThat(metrics.getCacheMisses()).isEqualTo(1);
+        assertThat(metrics.getCacheHits()).isEqualTo(3);
+        assertThat(metrics.getCacheHitRatio()).isEqualTo(0.75);
+        // Only the miss searched the graph
+        assertThat(metrics.getStatesVisited()).isEqualTo(12);
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        final ConversionMetrics metrics = new ConversionMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.recordNumber(System.nanoTime(), 0);
+        }
+        metrics.recordNumber(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100), 0);
+
+        assertThat(metrics.getLatencyP50Micros()).isLessThan(10_000);
+        assertThat(metrics.getLatencyP999Micros()).isGreaterThanOrEqualTo(100_000);
+        assertThat(metrics.getLatencyMaxMicros()).isGreaterThanOrEqualTo(metrics.getLatencyP999Micros());
+    }
+
+    @Test
+    public void testRecordsDictionaryLoad() {
+        final ConversionMetrics metrics = new ConversionMetrics();
+        metrics.recordDictionaryLoad(dictionary, TimeUnit.MILLISECONDS.toNanos(12));
+
+        assertThat(metrics.getDictionaryLoads()).isEqualTo(1);
+        assertThat(metrics.getDictionaryLoadMillis()).isEqualTo(12);
+        assertThat(metrics.getDictionaryWords()).isEqualTo(9);
+        // A and B share the number 2
+        assertThat(metrics.getDictionaryNumbers()).isEqualTo(8);
+        assertThat(metrics.getDictionaryEstimatedBytes()).isPositive();
+
+        final PackedDictionary packed = PackedDictionary.from(dictionary);
+        metrics.recordDictionaryLoad(packed, 0);
+        assertThat(metrics.getDictionaryEstimatedBytes()).isEqualTo(packed.image().capacity());
+    }
+
+    @Test
+    public void testDictionaryLoadDoesNotWalkDictionary() {
+        final AtomicInteger reads = new AtomicInteger();
+        final Dictionary counted = new Dictionary() {
+
+            @Override
+            public int getMaxWordLength() {
+                return dictionary.getMaxWordLength();
+            }
+
+            @Override
+            public int getTotalWordCount() {
+                return dictionary.getTotalWordCount();
+            }
+
+            @Override
+            public int next(int node, char digit) {
+                reads.incrementAndGet();
+                return dictionary.next(node, digit);
+            }
+
+            @Override
+            public int getWordCount(int node) {
+                return dictionary.getWordCount(node);
+            }
+
+            @Override
+            public String getWord(int node, int index) {
+                return dictionary.getWord(node, index);
+            }
+
+        };
+        final ConversionMetrics metrics = new ConversionMetrics();
+        metrics.recordDictionaryLoad(counted, 0);
+        assertThat(metrics.getDictionaryWords()).isEqualTo(9);
+        assertThat(reads.get()).isZero();
+
+        assertThat(metrics.getDictionaryNumbers()).isEqualTo(8);
+        final int walked = reads.get();
+        assertThat(walked).isPositive();
+        assertThat(metrics.getDictionaryEstimatedBytes()).isPositive();
+        assertThat(reads.get()).isEqualTo(walked);
+    }
+
+    @Test
+    public void testPublishedOverJmx() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(ConversionMetrics.OBJECT_NAME);
+        final ConversionMetrics metrics = new ConversionMetrics();
+        metrics.register();
+        try {
+            new NumberToWordConverter(() -> dictionary, null, metrics).convert("225563").count();
+            assertThat(server.getAttribute(name, "NumbersConverted")).isEqualTo(1L);
+        } finally {
+            metrics.close();
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+}
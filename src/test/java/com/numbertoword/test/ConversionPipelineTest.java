@@ -0,0 +1,203 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import com.phonetoword.convertor.ConversionPipeline;
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ResultSink;
+import com.phonetoword.convertor.SearchBudget;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Test converting numbers through the ring buffer pipeline.
+ */
+public class ConversionPipelineTest {
+
+    private static Dictionary dictionary;
+    private static NumberToWordConverter numberToWordConverter;
+    private static Path testData;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        numberToWordConverter = new NumberToWordConverter(dictionary);
+        testData = Paths.get("src/test/resources/test-data.txt");
+    }
+
+    @Test
+    public void testMatchesSequentialInInputOrder() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.addAll(Files.readAllLines(testData));
+        }
+        final List<String> expected = new ArrayList<>();
+        numberToWordConverter.process(lines.stream(),
+                (number, words) -> expected.add(number + "=" + words.collect(Collectors.toList())));
+
+        // A ring much smaller than the input makes the reader wait for the writer
+        final List<String> actual = new ArrayList<>();
+        try (ConversionPipeline pipeline = new ConversionPipeline(numberToWordConverter, 3, 4, null)) {
+            pipeline.process(lines.stream(),
+                    (number, words) -> actual.add(number + "=" + words.collect(Collectors.toList())));
+            // The pipeline can be reused once a stream is done
+            pipeline.process(lines.stream(), (number, words) -> words.count());
+        }
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testHandsOverWordsBeyondSlot() {
+        final String number = Strings.repeat("2", 14);
+        final List<String> expected = ImmutableList.copyOf(numberToWordConverter.iterator(number));
+        assertThat(expected.size()).isGreaterThan(4096);
+
+        final List<String> actual = new ArrayList<>();
+        try (ConversionPipeline pipeline = new ConversionPipeline(numberToWordConverter, 2, null)) {
+            pipeline.process(Collections.singletonList(number).stream(),
+                    (n, words) -> words.forEach(actual::add));
+        }
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testReportsTruncatedNumbers() {
+        final SearchBudget budget = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, 2, Integer.MAX_VALUE);
+        final List<String> actual = new ArrayList<>();
+        try (ConversionPipeline pipeline = new ConversionPipeline(numberToWordConverter, 2, budget)) {
+            pipeline.process(ImmutableList.of("22556322", "225563").stream(), new ResultSink() {
+
+                @Override
+                public void accept(String number, Stream<String> words) {
+                    throw new AssertionError("Budgeted numbers should come with the truncated flag");
+                }
+
+                @Override
+                public void accept(String number, Stream<String> words, boolean truncated) {
+                    actual.add(number + "=" + words.collect(Collectors.toList()) + (truncated ? " truncated" : ""));
+                }
+
+            });
+        }
+
+        assertThat(actual).containsExactly("22556322=[CALL-ME-A-A, CALL-ME-A-B] truncated", "225563=[CALL-ME]");
+    }
+
+    @Test
+    public void testAnswersNumbersBeforeInputEnds() {
+        final CountDownLatch answered = new CountDownLatch(1);
+        // The second number is only read once the first one has been answered, as on an interactive input
+        final Iterator<String> lines = new AbstractIterator<String>() {
+
+            private int read;
+
+            @Override
+            protected String computeNext() {
+                if (read == 1 && !Uninterruptibles.awaitUninterruptibly(answered, 10, TimeUnit.SECONDS)) {
+                    throw new AssertionError("First number was not answered");
+                }
+                return read++ < 2 ? "225563" : endOfData();
+            }
+
+        };
+
+        final List<String> actual = new ArrayList<>();
+        try (ConversionPipeline pipeline = new ConversionPipeline(numberToWordConverter, 2, null)) {
+            pipeline.process(StreamSupport.stream(Spliterators.spliteratorUnknownSize(lines, Spliterator.ORDERED),
+                    false), (number, words) -> {
+                        actual.add(number + "=" + words.collect(Collectors.toList()));
+                        answered.countDown();
+                    });
+        }
+
+        assertThat(actual).containsExactly("225563=[CALL-ME]", "225563=[CALL-ME]");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRethrowsFailures() {
+        try (ConversionPipeline pipeline = new ConversionPipeline(numberToWordConverter, 2, null)) {
+            pipeline.process(ImmutableList.of("225563", "2255").stream(), (number, words) -> {
+                throw new IllegalStateException(number);
+            });
+        }
+    }
+
+    @Test
+    public void testRethrowsErrorsOnceOtherNumbersAreWritten() {
+        // Walking down a 9 fails with an error, as running out of stack would
+        final NumberToWordConverter failing = new NumberToWordConverter(new Dictionary() {
+
+            @Override
+            public int getMaxWordLength() {
+                return dictionary.getMaxWordLength();
+            }
+
+            @Override
+            public int getTotalWordCount() {
+                return dictionary.getTotalWordCount();
+            }
+
+            @Override
+            public int next(int node, char digit) {
+                if (digit == '9') {
+                    throw new AssertionError("Cannot walk " + digit);
+                }
+                return dictionary.next(node, digit);
+            }
+
+            @Override
+            public int getWordCount(int node) {
+                return dictionary.getWordCount(node);
+            }
+
+            @Override
+            public String getWord(int node, int index) {
+                return dictionary.getWord(node, index);
+            }
+
+        });
+
+        final List<String> actual = new ArrayList<>();
+        try (ConversionPipeline pipeline = new ConversionPipeline(failing, 1, 2, null)) {
+            pipeline.process(ImmutableList.of("225563", "9", "225563", "2255").stream(),
+                    (number, words) -> actual.add(number + "=" + words.collect(Collectors.toList())));
+            fail("The error should have been thrown");
+        } catch (final AssertionError e) {
+            assertThat(e).hasMessage("Cannot walk 9");
+        }
+
+        assertThat(actual).containsExactly("225563=[CALL-ME]", "225563=[CALL-ME]", "2255=[CALL]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsRingSizeNotPowerOfTwo() {
+        new ConversionPipeline(numberToWordConverter, 2, 6, null).close();
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.LocaleDictionaries;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.server.ConversionServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Test the HTTP server on localhost.
+ */
+public class ConversionServerTest {
+
+    private static ConversionServer server;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        final LocaleDictionaries locales = new LocaleDictionaries(ImmutableMap.of("en",
+                DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt")), "el", DictionaryReader
+                        .load(Paths.get("src/test/resources/test-dictionary-el.txt"), Keypad.forName("greek"))));
+        server = new ConversionServer(
+                ImmutableMap.of("en", new NumberToWordConverter(locales.get("en")), "el",
+                        new NumberToWordConverter(locales.get("el"))),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 3, 5000);
+        server.start();
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.close();
+    }
+
+    @Test
+    public void testGetConvertsOneNumber() throws IOException {
+        final Response response = get("/convert?number=" + URLEncoder.encode("(2)255.63", "UTF-8"));
+
+        assertThat(response.status).isEqualTo(200);
+        assertThat(response.body).isEqualTo("{\"number\":\"225563\",\"words\":[\"CALL-ME\"],\"truncated\":false}");
+    }
+
+    @Test
+    public void testPostConvertsBatch() throws IOException {
+        final String expected = "{\"results\":[{\"number\":\"225563\",\"words\":[\"CALL-ME\"],\"truncated\":false},"
+                + "{\"number\":\"748\",\"words\":[\"SIT\"],\"truncated\":false}]}";
+
+        assertThat(post("/convert", "[\"2255.63\", \"748\"]")).isEqualTo(new Response(200, expected));
+        assertThat(post("/convert", "2255.63\n\n748\n")).isEqualTo(new Response(200, expected));
+    }
+
+    @Test
+    public void testLimitsResults() throws IOException {
+        // 22556322 has 8 words, more than the 3 the server returns for a single number
+        assertThat(get("/convert?number=22556322").body).isEqualTo("{\"number\":\"22556322\","
+                + "\"words\":[\"CALL-ME-A-A\",\"CALL-ME-A-B\",\"CALL-ME-A-2\"],\"truncated\":true}");
+        assertThat(get("/convert?number=22556322&limit=1").body)
+                .isEqualTo("{\"number\":\"22556322\",\"words\":[\"CALL-ME-A-A\"],\"truncated\":true}");
+        assertThat(get("/convert?number=22556322&limit=100").body).contains("\"CALL-ME-A-2\"],\"truncated\":true}");
+    }
+
+    @Test
+    public void testRejectsInvalidRequests() throws IOException {
+        assertThat(get("/convert").status).isEqualTo(400);
+        assertThat(get("/convert?number=abc").status).isEqualTo(400);
+        assertThat(get("/convert?number=225563&limit=0").status).isEqualTo(400);
+        assertThat(get("/convert?number=%zz").status).isEqualTo(400);
+        assertThat(get("/convert?number=" + new String(new char[65]).replace('\0', '2')).status).isEqualTo(400);
+        assertThat(post("/convert", "[\"225563\"").status).isEqualTo(400);
+        assertThat(get("/convert/more?number=225563").status).isEqualTo(404);
+        assertThat(request("DELETE", "/convert", null).status).isEqualTo(405);
+        assertThat(get("/convert?number=abc").body).isEqualTo("{\"error\":\"Not a phone number: abc\"}");
+    }
+
+    @Test
+    public void testPicksLocale() throws IOException {
+        assertThat(get("/convert?number=2342727&locale=el").body).isEqualTo(
+                "{\"number\":\"2342727\",\"words\":[\"ΓΕΙΑ-ΣΑΣ\"],\"truncated\":false}");
+        assertThat(get("/convert?number=2342727").body).doesNotContain("ΓΕΙΑ");
+        assertThat(post("/convert?locale=el", "[\"624\"]").body).contains("\"ΝΑΙ\"");
+        assertThat(get("/convert?number=2342727&locale=fr"))
+                .isEqualTo(new Response(400, "{\"error\":\"Unknown locale: fr\"}"));
+    }
+
+    @Test
+    public void testRejectsLargeBatches() throws IOException {
+        final StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < 1001; i++) {
+            batch.append("225563\n");
+        }
+        assertThat(post("/convert", batch.toString()).status).isEqualTo(413);
+    }
+
+    private static Response get(String path) throws IOException {
+        return request("GET", path, null);
+    }
+
+    private static Response post(String path, String body) throws IOException {
+        return request("POST", path, body);
+    }
+
+    private static Response request(String method, String path, String body) throws IOException {
+        final URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (body != null) {
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            final int status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                return new Response(status, new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Response && ((Response) obj).status == status && ((Response) obj).body.equals(body);
+        }
+
+        @Override
+        public int hashCode() {
+            return status * 31 + body.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return status + " " + body;
+        }
+
+    }
+
+}
@@ -2,26 +2,51 @@ package com.numbertoword.test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.phonetoword.convertor.NumberToWordConverter;
 import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.TrieDictionary;
+import com.phonetoword.dictionary.reader.DictionaryDelta;
 import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests that exercise the boundary conditions of each of the internal dictionary functions.
  */
 public class DictionaryTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test(expected = IOException.class)
     public void testThrowsIOExceptionIfFileNotFound() throws IOException {
         final Dictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-notexist.txt"));
@@ -90,4 +115,318 @@ public class DictionaryTest {
         assertNotNull(dictionary.getWordsForNumber("2892287287628376476484272636734646565727223423223444422"));
     }
 
+    @Test
+    public void testWalksOneDigitAtATime() throws IOException {
+        final Dictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+
+        int node = dictionary.next(Dictionary.ROOT, '2');
+        assertThat(node).isNotEqualTo(Dictionary.NO_NODE);
+        assertEquals(2, dictionary.getWordCount(node));
+
+        node = dictionary.next(node, '2');
+        assertEquals(0, dictionary.getWordCount(node));
+        node = dictionary.next(node, '5');
+        node = dictionary.next(node, '5');
+        assertEquals(1, dictionary.getWordCount(node));
+        assertEquals("CALL", dictionary.getWord(node, 0));
+    }
+
+    @Test
+    public void testWalkStopsWhenNoWordCanFollow() throws IOException {
+        final Dictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+
+        assertEquals(Dictionary.NO_NODE, dictionary.next(Dictionary.ROOT, '0'));
+        assertEquals(Dictionary.NO_NODE, dictionary.next(Dictionary.ROOT, '1'));
+        assertEquals(Dictionary.NO_NODE, dictionary.next(dictionary.next(Dictionary.ROOT, '6'), '2'));
+        assertThat(dictionary.getWordsForNumber("62")).isEmpty();
+    }
+
+    @Test
+    public void testIgnoresDuplicateWordForSameNumber() {
+        final TrieDictionary dictionary = new TrieDictionary();
+        dictionary.addWord("63", "ME");
+        dictionary.addWord("63", "ME");
+        dictionary.addWord("63", "OF");
+
+        assertEquals(2, dictionary.getTotalWordCount());
+        assertThat(dictionary.getWordsForNumber("63")).containsOnly("ME", "OF");
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        final Dictionary dictionary;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/default_dictionary.txt")) {
+            dictionary = DictionaryReader.load(in);
+        }
+        final Path snapshot = temporaryFolder.newFile("dictionary.bin").toPath();
+        DictionaryReader.export(dictionary, snapshot);
+
+        assertTrue(DictionaryReader.isSnapshot(snapshot));
+        final Dictionary loaded = DictionaryReader.loadSnapshot(snapshot);
+        assertEquals(dictionary.getTotalWordCount(), loaded.getTotalWordCount());
+        assertEquals(dictionary.getMaxWordLength(), loaded.getMaxWordLength());
+
+        final List<String> expected = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> expected.add(number + "=" + word));
+        final List<String> actual = new ArrayList<>();
+        loaded.forEachWord((number, word) -> actual.add(number + "=" + word));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() throws IOException {
+        final Path path = Paths.get("src/main/resources/data/default_dictionary.txt");
+        final Dictionary dictionary = DictionaryReader.load(path);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final int chunkBytes : new int[] {1, 4096, 1 << 30}) {
+                final Dictionary loaded = DictionaryReader.loadInParallel(path, pool, chunkBytes);
+                assertEquals(dictionary.getTotalWordCount(), loaded.getTotalWordCount());
+                assertEquals(dictionary.getMaxWordLength(), loaded.getMaxWordLength());
+                assertThat(allWords(loaded)).isEqualTo(allWords(dictionary));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelLoadSplitsLinesLikeReader() throws IOException {
+        final String text = "call\r\nMe\r\n\r\nit's\rcall\n\u00e9t\u00e9\nCOMPUTATIONALLY-SPEAKING\nsleep";
+        final Path path = temporaryFolder.newFile("dictionary.txt").toPath();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+
+        final Dictionary dictionary = DictionaryReader.load(path);
+        for (final int chunkBytes : new int[] {1, 3, 8, 1024}) {
+            final Dictionary loaded = DictionaryReader.loadInParallel(path, ForkJoinPool.commonPool(), chunkBytes);
+            assertThat(allWords(loaded)).isEqualTo(allWords(dictionary));
+        }
+        assertThat(allWords(dictionary)).containsExactly("2255=CALL",
+                "26678828466255977325464=COMPUTATIONALLYSPEAKING", "487=ITS", "63=ME", "75337=SLEEP", "8=T");
+    }
+
+    @Test
+    public void testParallelLoadNormalisesNonAsciiLikeReader() throws IOException {
+        // Dotless i and long s are on the keypad by their upper case, other accented letters are not
+        final String text = "\u0131t\u017f\nstra\u00dfe\n\u039a\u03b1\u03bb\u03b7\u03bc\u03ad\u03c1\u03b1 call\n"
+                + "\u00e9t\u00e9\r\nna\u00efve\nIT\u017f\n";
+        final Path path = temporaryFolder.newFile("dictionary.txt").toPath();
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+
+        final Dictionary dictionary = DictionaryReader.load(path);
+        for (final int chunkBytes : new int[] {1, 2, 5, 1024}) {
+            final Dictionary loaded = DictionaryReader.loadInParallel(path, ForkJoinPool.commonPool(), chunkBytes);
+            assertThat(allWords(loaded)).isEqualTo(allWords(dictionary));
+        }
+        assertThat(allWords(dictionary)).containsExactly("2255=CALL", "487=ITS", "6283=NAVE", "78723=STRAE", "8=T");
+    }
+
+    @Test(expected = MalformedInputException.class)
+    public void testParallelLoadRejectsMalformedInput() throws IOException {
+        final Path path = temporaryFolder.newFile("dictionary.txt").toPath();
+        Files.write(path, new byte[] {'c', 'a', 'l', 'l', '\n', (byte) 0xC3, '\n'});
+        DictionaryReader.loadInParallel(path, ForkJoinPool.commonPool(), 1);
+    }
+
+    @Test
+    public void testParallelLoadOfEmptyFile() throws IOException {
+        final Path path = temporaryFolder.newFile("empty.txt").toPath();
+        assertEquals(0, DictionaryReader.loadInParallel(path, ForkJoinPool.commonPool()).getTotalWordCount());
+    }
+
+    @Test
+    public void testForEachWordVisitsNumbersInOrder() throws IOException {
+        final Dictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        final List<String> numbers = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> numbers.add(number));
+
+        assertThat(numbers).hasSize(9).isSorted();
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadSnapshotRejectsWordList() throws IOException {
+        final Path wordList = Paths.get("src/test/resources/test-dictionary.txt");
+        assertFalse(DictionaryReader.isSnapshot(wordList));
+        DictionaryReader.loadSnapshot(wordList);
+    }
+
+    @Test
+    public void testPackedDictionaryMatchesTrie() throws IOException {
+        final Dictionary dictionary;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/default_dictionary.txt")) {
+            dictionary = DictionaryReader.load(in);
+        }
+        final PackedDictionary packed = PackedDictionary.from(dictionary);
+        assertEquals(dictionary.getTotalWordCount(), packed.getTotalWordCount());
+        assertEquals(dictionary.getMaxWordLength(), packed.getMaxWordLength());
+
+        dictionary.forEachWord((number, word) -> assertThat(packed.getWordsForNumber(number))
+                .isEqualTo(dictionary.getWordsForNumber(number)));
+        assertThat(packed.getWordsForNumber("2255")).contains("CALL");
+        assertThat(packed.getWordsForNumber("0")).isEmpty();
+        assertThat(packed.getWordsForNumber("22552255")).isEmpty();
+    }
+
+    @Test
+    public void testRemovesWordsInPlace() {
+        final TrieDictionary dictionary = new TrieDictionary();
+        assertTrue(dictionary.addWord("63", "ME"));
+        assertTrue(dictionary.addWord("63", "OF"));
+        assertTrue(dictionary.addWord("2255", "CALL"));
+
+        assertTrue(dictionary.removeWord("2255", "CALL"));
+        assertFalse(dictionary.removeWord("2255", "CALL"));
+        assertFalse(dictionary.removeWord("63", "MF"));
+        assertFalse(dictionary.removeWord("9", "W"));
+
+        assertEquals(2, dictionary.getTotalWordCount());
+        assertEquals(2, dictionary.getMaxWordLength());
+        assertThat(dictionary.getWordsForNumber("2255")).isEmpty();
+        assertThat(dictionary.getWordsForNumber("63")).containsOnly("ME", "OF");
+
+        assertTrue(dictionary.removeWord("63", "ME"));
+        assertTrue(dictionary.removeWord("63", "OF"));
+        assertEquals(0, dictionary.getTotalWordCount());
+        assertEquals(0, dictionary.getMaxWordLength());
+        assertTrue(dictionary.addWord("63", "OF"));
+        assertThat(dictionary.getWordsForNumber("63")).containsOnly("OF");
+    }
+
+    @Test
+    public void testRemovalKeepsNodeForCallersThatReachedIt() {
+        final TrieDictionary dictionary = new TrieDictionary();
+        dictionary.addWord("63", "ME");
+        dictionary.addWord("63", "OF");
+        final int node = dictionary.next(dictionary.next(Dictionary.ROOT, '6'), '3');
+        final long version = dictionary.getVersion();
+
+        assertTrue(dictionary.removeWord("63", "OF"));
+        assertEquals(2, dictionary.getWordCount(node));
+        assertEquals("OF", dictionary.getWord(node, 1));
+        assertThat(dictionary.getWordsForNumber("63")).containsOnly("ME");
+        assertThat(dictionary.getVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    public void testRemovingEmptyNumberRemovesNothing() {
+        final TrieDictionary dictionary = new TrieDictionary();
+        dictionary.addWord("63", "ME");
+
+        assertFalse(dictionary.removeWord("", ""));
+        assertFalse(dictionary.removeWord("", "ME"));
+        assertEquals(1, dictionary.getTotalWordCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyWord() {
+        new TrieDictionary().addWord("", "");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNumberThatIsNotDigits() {
+        new TrieDictionary().addWord("6:", "ME");
+    }
+
+    @Test
+    public void testAppliesDelta() throws IOException {
+        final TrieDictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+
+        assertEquals(3, DictionaryReader.applyDelta(dictionary,
+                Arrays.asList("-compute", "- call", "ball", "sit", "", "-unknown", "12").stream(), Keypad.STANDARD));
+        assertEquals(1, DictionaryReader.applyDelta(dictionary, Arrays.asList("call", "ball").stream(),
+                Keypad.STANDARD));
+        assertEquals(1, DictionaryReader.applyDelta(dictionary, Arrays.asList("-Ball").stream(), Keypad.STANDARD));
+
+        assertEquals(8, dictionary.getTotalWordCount());
+        assertEquals(5, dictionary.getMaxWordLength());
+        assertThat(dictionary.getWordsForNumber("2255")).containsOnly("CALL");
+        assertThat(dictionary.getWordsForNumber("2667883")).isEmpty();
+    }
+
+    @Test
+    public void testAppliesDeltaWithKeypadOfDictionary() throws IOException {
+        final Keypad greek = Keypad.forName("greek");
+        final TrieDictionary dictionary =
+                DictionaryReader.load(Paths.get("src/test/resources/test-dictionary-el.txt"), greek);
+
+        assertEquals(2, DictionaryReader.applyDelta(dictionary, Arrays.asList("-Γεια", "σας", "Καλά").stream(),
+                greek));
+        assertThat(dictionary.getWordsForNumber(greek.toNumber("Γεια"))).doesNotContain(greek.normalise("Γεια"));
+        assertThat(dictionary.getWordsForNumber(greek.toNumber("Καλά"))).containsOnly(greek.normalise("Καλά"));
+    }
+
+    @Test
+    public void testAppliesDeltaFileWhenItChanges() throws IOException, InterruptedException {
+        final TrieDictionary dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        final Path path = temporaryFolder.getRoot().toPath().resolve("delta.txt");
+        Files.write(path, "-call\n".getBytes(StandardCharsets.UTF_8));
+
+        try (DictionaryDelta delta = new DictionaryDelta(dictionary, path, Keypad.STANDARD)) {
+            assertThat(dictionary.getWordsForNumber("2255")).isEmpty();
+
+            final long version = dictionary.getVersion();
+            Files.write(path, "-call\nball\n".getBytes(StandardCharsets.UTF_8));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (dictionary.getVersion() == version && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(dictionary.getWordsForNumber("2255")).containsOnly("BALL");
+            assertEquals(0, delta.apply());
+        }
+    }
+
+    @Test
+    public void testReadersSeeConsistentWordsWhileUpdating() throws Exception {
+        final TrieDictionary dictionary;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/default_dictionary.txt")) {
+            dictionary = DictionaryReader.load(in);
+        }
+        final List<String> words = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> words.add(word));
+        final NumberToWordConverter converter = new NumberToWordConverter(dictionary);
+        final AtomicBoolean done = new AtomicBoolean();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<?>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 2; reader++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        assertThat(dictionary.getWordsForNumber("2255")).contains("CALL");
+                        converter.convert("2255632255").forEach(word -> assertThat(word.replace("-", ""))
+                                .hasSize(10).matches("[A-Z0-9]*"));
+                    }
+                    return null;
+                }));
+            }
+            // Remove and add back every other word, with new words that grow the trie in between
+            for (int round = 0; round < 3; round++) {
+                final List<String> removed = new ArrayList<>();
+                for (int i = round % 2; i < words.size(); i += 2) {
+                    if (!words.get(i).equals("CALL")) {
+                        removed.add(words.get(i));
+                    }
+                }
+                DictionaryReader.applyDelta(dictionary, removed.stream().map(word -> "-" + word), Keypad.STANDARD);
+                DictionaryReader.applyDelta(dictionary, Arrays.asList("ZZZZZZZZZZZZ", "QQQ").stream(),
+                        Keypad.STANDARD);
+                DictionaryReader.applyDelta(dictionary, removed.stream(), Keypad.STANDARD);
+            }
+            done.set(true);
+            for (final Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertEquals(words.size() + 2, dictionary.getTotalWordCount());
+    }
+
+    private static List<String> allWords(Dictionary dictionary) {
+        final List<String> words = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> words.add(number + "=" + word));
+        return words;
+    }
+
 }
@@ -0,0 +1,127 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ReverseConverter;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.LocaleDictionaries;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test keypad layouts and dictionaries of several locales sharing one trie.
+ */
+public class LocaleDictionariesTest {
+
+    private static Map<String, Dictionary> sources;
+    private static LocaleDictionaries locales;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void init() throws IOException {
+        sources = ImmutableMap.of("en", DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt")),
+                "el", DictionaryReader.load(Paths.get("src/test/resources/test-dictionary-el.txt"),
+                        Keypad.forName("greek")));
+        locales = new LocaleDictionaries(sources);
+    }
+
+    @Test
+    public void testLayoutsMapNationalLetters() {
+        final Keypad greek = Keypad.forName("Greek");
+        assertThat(greek.toNumber("Καλημέρα")).isEqualTo("52545372");
+        assertThat(greek.normalise("σας!")).isEqualTo("ΣΑΣ");
+        assertThat(greek.toNumber("ΣΑΣ call")).isEqualTo("7272255");
+        assertThat(Keypad.forName("cyrillic").toNumber("Ёлка")).isEqualTo("3442");
+        assertThat(Keypad.forName("latin").toNumber("Crème brûlée")).isEqualTo("27363278533");
+        assertThat(Keypad.forName("latin").digit('Ω')).isEqualTo(Keypad.NO_DIGIT);
+    }
+
+    @Test
+    public void testLoadsLayoutFile() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("swedish.txt");
+        Files.write(path, "# Swedish\n2 ABCÅÄ\n3 DEF\n4GHI\n5 JKL\n6 MNOÖ\n7 PQRS\n8 TUV\n9 WXYZ\n"
+                .getBytes(StandardCharsets.UTF_8));
+        final Keypad swedish = Keypad.load(path);
+
+        assertThat(swedish.getName()).isEqualTo("swedish.txt");
+        assertThat(swedish.toNumber("Hälsö")).isEqualTo("42576");
+        assertThat(swedish.toNumber("é")).isEqualTo("3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownLayout() {
+        Keypad.forName("klingon");
+    }
+
+    @Test
+    public void testLocalesMatchTheirSources() {
+        for (final String locale : locales.getLocales()) {
+            assertThat(words(locales.get(locale))).as(locale).isEqualTo(words(sources.get(locale)));
+            assertThat(locales.get(locale).getTotalWordCount()).isEqualTo(sources.get(locale).getTotalWordCount());
+            assertThat(locales.get(locale).getMaxWordLength()).isEqualTo(sources.get(locale).getMaxWordLength());
+        }
+        assertThat(locales.getLocales()).containsExactly("en", "el");
+        assertThat(locales.getDefaultLocale()).isEqualTo("en");
+    }
+
+    @Test
+    public void testSharesTrieAndWords() {
+        final int separateNodes = PackedDictionary.from(sources.get("en")).getNodeCount()
+                + PackedDictionary.from(sources.get("el")).getNodeCount();
+        assertThat(locales.getNodeCount()).isLessThan(separateNodes);
+        assertThat(locales.getDistinctWordCount())
+                .isEqualTo(sources.get("en").getTotalWordCount() + sources.get("el").getTotalWordCount() - 1);
+        assertThat(locales.get("el").getWordsForNumber("2255").iterator().next())
+                .isSameAs(locales.get("en").getWordsForNumber("2255").iterator().next());
+    }
+
+    @Test
+    public void testPrunesWordsOfOtherLocales() {
+        assertThat(locales.get("en").next(Dictionary.ROOT, '5')).isEqualTo(Dictionary.NO_NODE);
+        assertThat(locales.get("el").next(Dictionary.ROOT, '5')).isNotEqualTo(Dictionary.NO_NODE);
+        assertThat(locales.get("el").getWordsForNumber("748")).isEmpty();
+
+        final NumberToWordConverter greek = new NumberToWordConverter(locales.get("el"));
+        assertThat(greek.process(Collections.singletonList("2342727").stream()).get("2342727"))
+                .contains("ΓΕΙΑ-ΣΑΣ");
+        assertThat(new ReverseConverter(() -> locales.get("el"), Keypad.forName("greek")).check("Γεια σας").isValid())
+                .isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownLocale() {
+        locales.get("fr");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoLocales() {
+        new LocaleDictionaries(ImmutableMap.of());
+    }
+
+    private static List<String> words(Dictionary dictionary) {
+        final List<String> words = new ArrayList<>();
+        dictionary.forEachWord((number, word) -> words.add(number + "=" + word));
+        return words;
+    }
+
+}
@@ -4,19 +4,39 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
 
+import com.google.common.base.Strings;
+
+import com.phonetoword.convertor.Conversion;
 import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ResultSink;
+import com.phonetoword.convertor.SearchBudget;
 import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.WordFrequencies;
 import com.phonetoword.dictionary.reader.DictionaryReader;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Test phone number converter.
@@ -79,4 +99,324 @@ public class NumberToWordConverterTest {
 
     }
 
+    @Test
+    public void testMatchesRecursiveSearchExactly() throws IOException {
+        final Dictionary defaultDictionary;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/default_dictionary.txt")) {
+            defaultDictionary = DictionaryReader.load(in);
+        }
+        final NumberToWordConverter converter = new NumberToWordConverter(defaultDictionary);
+        final Random random = new Random(1800);
+
+        for (int n = 0; n < 200; n++) {
+            final StringBuilder number = new StringBuilder();
+            final int length = 1 + random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+
+            final List<String> expected = new ArrayList<>();
+            recursiveSearch(defaultDictionary, "", number.toString(), expected);
+            assertThat(converter.process(Collections.singletonList(number.toString()).stream()).get(
+                    number.toString())).as(number.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testConvertIsLazy() {
+        // Every 2 is "A", "B" or a raw digit, which gives far too many words to ever materialise
+        final String number = Strings.repeat("2", 200);
+
+        assertThat(numberToWordConverter.convert(number).limit(3).collect(Collectors.toList())).hasSize(3);
+        assertThat(numberToWordConverter.convert(number).findFirst().get()).startsWith("A-A-A-A");
+    }
+
+    @Test
+    public void testConvertIgnoresPunctuation() {
+        assertThat(numberToWordConverter.convert("(2)255.63").collect(Collectors.toList())).containsExactly("CALL-ME");
+        assertThat(numberToWordConverter.iterator("44(2)255.63").hasNext()).isFalse();
+    }
+
+    @Test
+    public void testProcessStreamsEachNumberToSink() {
+        final Map<String, List<String>> received = new LinkedHashMap<>();
+        numberToWordConverter.process(Arrays.asList("2255.63", "", "4225563", "222").stream(), 2,
+                (number, words) -> received.put(number, words.collect(Collectors.toList())));
+
+        assertThat(received.keySet()).containsExactly("225563", "4225563", "222");
+        assertThat(received.get("225563")).containsExactly("CALL-ME");
+        assertThat(received.get("4225563")).containsExactly("4-CALL-ME");
+        assertThat(received.get("222")).hasSize(2);
+    }
+
+    @Test
+    public void testConvertInParallelMatchesSequential() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final String number : Arrays.asList("225563", Strings.repeat("2", 14), "22556322" + "2255632255")) {
+                assertThat(numberToWordConverter.convertInParallel(number, pool))
+                        .isEqualTo(numberToWordConverter.convert(number).collect(Collectors.toList()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testPackedDictionaryGivesSameWords() throws IOException {
+        final NumberToWordConverter packedConverter = new NumberToWordConverter(PackedDictionary.from(dictionary));
+        assertThat(packedConverter.process(testData)).isEqualTo(numberToWordConverter.process(testData));
+    }
+
+    @Test
+    public void testAllocatesLittleMoreThanTheResultStrings() {
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        final long thread = Thread.currentThread().getId();
+        final String number = Strings.repeat("2", 40);
+
+        long characters = 0;
+        long results = 0;
+        for (int run = 0; run < 3; run++) {
+            characters = 0;
+            results = 0;
+            final long before = allocations.getThreadAllocatedBytes(thread);
+            final Iterator<String> words = numberToWordConverter.iterator(number);
+            while (words.hasNext() && results < 200_000) {
+                characters += words.next().length();
+                results++;
+            }
+            final long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+            if (run == 2) {
+                // A String with its char[] costs about 40 bytes plus two per character, everything else is per number
+                assertThat(allocated).isLessThan(results * 64 + characters * 2 + 64 * 1024);
+            }
+        }
+    }
+
+    @Test
+    public void testTopKMatchesSortingEveryWord() throws IOException {
+        final Dictionary defaultDictionary;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("data/default_dictionary.txt")) {
+            defaultDictionary = DictionaryReader.load(in);
+        }
+        final NumberToWordConverter converter = new NumberToWordConverter(defaultDictionary);
+        final Random random = new Random(1800);
+
+        for (int n = 0; n < 100; n++) {
+            final StringBuilder number = new StringBuilder();
+            final int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+
+            // A stable sort, so words of equal rank stay in the order they are generated in
+            final List<String> expected = converter.convert(number.toString())
+                    .sorted(Comparator.comparingInt(NumberToWordConverterTest::leftoverDigits)
+                            .thenComparingInt(NumberToWordConverterTest::wordCount))
+                    .limit(10)
+                    .collect(Collectors.toList());
+            assertThat(converter.topK(number.toString(), 10)).as(number.toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testTopKPrefersFewerDigitsThenFewerWords() {
+        assertThat(numberToWordConverter.topK("4225563", 5)).containsExactly("4-CALL-ME");
+        assertThat(numberToWordConverter.topK("22556322", 3)).containsExactly("CALL-ME-A-A", "CALL-ME-A-B",
+                "CALL-ME-B-A");
+        assertThat(numberToWordConverter.topK("44225563", 5)).isEmpty();
+        // Far too many words to sort, but only the best few are ever looked at
+        assertThat(numberToWordConverter.topK(Strings.repeat("2", 200), 2)).hasSize(2);
+    }
+
+    @Test
+    public void testTopKPrefersManyWordsToOneDigit() {
+        final NumberToWordConverter converter =
+                new NumberToWordConverter(DictionaryReader.load(Arrays.asList("abc", "a").stream()));
+
+        assertThat(converter.topK("2222", 3)).containsExactly("A-ABC", "ABC-A", "A-A-A-A");
+        final List<String> all = converter.topK("2222", 100);
+        assertThat(all.indexOf("2-ABC")).isGreaterThan(all.indexOf("A-A-A-A"));
+        // Ten words still rank before two words and a digit left as it is
+        assertThat(new NumberToWordConverter(DictionaryReader.load(Arrays.asList("ad", "d", "dadadadadadadadada")
+                .stream())).topK("23232323232323232323", 2))
+                .containsExactly("AD-AD-AD-AD-AD-AD-AD-AD-AD-AD", "2-DADADADADADADADADA-D");
+    }
+
+    @Test
+    public void testTopKRanksCommonWordsFirst() {
+        final List<String> lines = Arrays.asList("call 10", "ball 1000", "me");
+        final NumberToWordConverter converter = new NumberToWordConverter(DictionaryReader.load(lines.stream()));
+
+        // Equal cost without frequencies, so in the order the words were added
+        assertThat(converter.topK("225563", 2)).containsExactly("CALL-ME", "BALL-ME");
+        assertThat(converter.topK("225563", 2, WordFrequencies.EMPTY)).containsExactly("CALL-ME", "BALL-ME");
+        assertThat(converter.topK("225563", 2, DictionaryReader.loadFrequencies(lines.stream())))
+                .containsExactly("BALL-ME", "CALL-ME");
+    }
+
+    @Test
+    public void testLoadFrequencies() {
+        final WordFrequencies frequencies = DictionaryReader.loadFrequencies(
+                Arrays.asList("call 1000", "Ball  10 ", "ball 5", "me", "#", "12", "m.e 0").stream());
+
+        assertThat(frequencies.size()).isEqualTo(2);
+        assertThat(frequencies.getWeight("CALL")).isEqualTo(1.0);
+        assertThat(frequencies.getWeight("BALL")).isBetween(0.3, 0.4);
+        assertThat(frequencies.getWeight("ME")).isZero();
+        assertThat(frequencies.getWeight("SIT")).isZero();
+    }
+
+    @Test
+    public void testLoadFrequenciesWithKeypadOfDictionary() {
+        final Keypad greek = Keypad.forName("greek");
+        final List<String> lines = Arrays.asList("Καλημέρα 50", "ΓΕΊΑ", "γεια 1000", "σας 10");
+        final Dictionary dictionary = DictionaryReader.load(lines.stream(), greek);
+        final WordFrequencies frequencies = DictionaryReader.loadFrequencies(lines.stream(), greek);
+
+        assertThat(frequencies.size()).isEqualTo(3);
+        dictionary.forEachWord((number, word) -> {
+            if (!word.equals("ΓΕΊΑ")) {
+                assertThat(frequencies.getWeight(word)).as(word).isPositive();
+            }
+        });
+        // Without frequencies the accented word comes first, as it was added first
+        assertThat(new NumberToWordConverter(dictionary).topK("2342727", 2)).containsExactly("ΓΕΊΑ-ΣΑΣ", "ΓΕΙΑ-ΣΑΣ");
+        assertThat(new NumberToWordConverter(dictionary).topK("2342727", 2, frequencies))
+                .containsExactly("ΓΕΙΑ-ΣΑΣ", "ΓΕΊΑ-ΣΑΣ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopKRejectsNoWords() {
+        numberToWordConverter.topK("225563", 0);
+    }
+
+    @Test
+    public void testBudgetLimitsResults() {
+        final List<String> words = numberToWordConverter.convert("22556322").collect(Collectors.toList());
+
+        final Conversion first =
+                numberToWordConverter.convert("22556322", budget(Long.MAX_VALUE, 3, Integer.MAX_VALUE));
+        assertThat(first.getWords()).isEqualTo(words.subList(0, 3));
+        assertThat(first.isTruncated()).isTrue();
+
+        final Conversion all =
+                numberToWordConverter.convert("22556322", budget(Long.MAX_VALUE, 8, Integer.MAX_VALUE));
+        assertThat(all.getWords()).isEqualTo(words);
+        assertThat(all.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void testBudgetLimitsDepth() {
+        // Every word of 22556322 has four tokens, e.g. CALL-ME-A-B
+        final Conversion shallow =
+                numberToWordConverter.convert("22556322", budget(Long.MAX_VALUE, Integer.MAX_VALUE, 3));
+        assertThat(shallow.getWords()).isEmpty();
+        assertThat(shallow.isTruncated()).isTrue();
+
+        final Conversion deep = numberToWordConverter.convert("22556322", budget(Long.MAX_VALUE, Integer.MAX_VALUE, 4));
+        assertThat(deep.getWords()).hasSize(8);
+        assertThat(deep.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void testBudgetLimitsNodesAndTime() {
+        // A long run of 2s has more words than could ever be generated
+        final String number = Strings.repeat("2", 200);
+        final List<String> words = numberToWordConverter.convert(number).limit(10_000).collect(Collectors.toList());
+
+        final Conversion byNodes =
+                numberToWordConverter.convert(number, budget(10_000, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertThat(byNodes.isTruncated()).isTrue();
+        assertThat(byNodes.getWords()).isNotEmpty().isEqualTo(words.subList(0, byNodes.getWords().size()));
+
+        final Conversion byTime =
+                numberToWordConverter.convert(number, new SearchBudget(Long.MAX_VALUE, 50, Integer.MAX_VALUE, 500));
+        assertThat(byTime.isTruncated()).isTrue();
+        assertThat(byTime.getWords()).isNotEmpty();
+
+        // Fewer nodes than solving the number takes still leave the words walked so far
+        final Conversion fewNodes = numberToWordConverter.convert(number, budget(250, Integer.MAX_VALUE,
+                Integer.MAX_VALUE));
+        assertThat(fewNodes.isTruncated()).isTrue();
+        assertThat(fewNodes.getWords()).isNotEmpty().isEqualTo(words.subList(0, fewNodes.getWords().size()));
+    }
+
+    @Test
+    public void testProcessCarriesOnAfterTruncatedNumber() {
+        final Map<String, Boolean> truncated = new LinkedHashMap<>();
+        final Map<String, List<String>> words = new LinkedHashMap<>();
+        numberToWordConverter.process(Arrays.asList(Strings.repeat("2", 40), "225563").stream(),
+                budget(1000, Integer.MAX_VALUE, Integer.MAX_VALUE), new ResultSink() {
+
+                    @Override
+                    public void accept(String number, Stream<String> found) {
+                        throw new AssertionError("Budgeted numbers should come with the truncated flag");
+                    }
+
+                    @Override
+                    public void accept(String number, Stream<String> found, boolean wasTruncated) {
+                        words.put(number, found.collect(Collectors.toList()));
+                        truncated.put(number, wasTruncated);
+                    }
+
+                });
+
+        assertThat(truncated).containsExactly(entry(Strings.repeat("2", 40), true), entry("225563", false));
+        assertThat(words.get("225563")).containsExactly("CALL-ME");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBudgetRejectsZeroLimit() {
+        budget(0, 1, 1);
+    }
+
+    private static SearchBudget budget(long maxNodes, int maxResults, int maxDepth) {
+        return new SearchBudget(maxNodes, Long.MAX_VALUE, maxResults, maxDepth);
+    }
+
+    /**
+     * Five per raw digit and two per word, the cost the converter ranks by without word frequencies.
+     */
+    private static int leftoverDigits(String word) {
+        return (int) word.chars().filter(Character::isDigit).count();
+    }
+
+    private static int wordCount(String word) {
+        return (int) Arrays.stream(word.split("-")).filter(token -> !Character.isDigit(token.charAt(0))).count();
+    }
+
+    /**
+     * The plain exponential search the converter used before suffix results were shared, kept as a reference.
+     */
+    private static void recursiveSearch(Dictionary dictionary, String processed, String unprocessed,
+            List<String> words) {
+        if (unprocessed.isEmpty()) {
+            words.add(processed);
+            return;
+        }
+        for (int i = 1; i <= unprocessed.length(); i++) {
+            for (final String word : dictionary.getWordsForNumber(unprocessed.substring(0, i))) {
+                recursiveSearch(dictionary, join(processed, word), unprocessed.substring(i), words);
+            }
+        }
+        final String digit = unprocessed.substring(0, 1);
+        if (processed.isEmpty() || !Character.isDigit(processed.charAt(processed.length() - 1))) {
+            recursiveSearch(dictionary, join(processed, digit), unprocessed.substring(1), words);
+        }
+        if (digit.equals("0") || digit.equals("1")) {
+            recursiveSearch(dictionary, join(processed, digit), unprocessed.substring(1), words);
+        }
+    }
+
+    private static String join(String processed, String current) {
+        if (processed.isEmpty() || Character.isDigit(processed.charAt(processed.length() - 1))
+                && Character.isDigit(current.charAt(0))) {
+            return processed + current;
+        }
+        return processed + "-" + current;
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ResultCache;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.dictionary.reader.ReloadableDictionary;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Test reloading a dictionary file when it changes.
+ */
+public class ReloadableDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReloadsWhenFileChanges() throws IOException, InterruptedException {
+        final Path path = write("dictionary.txt", "call", "me");
+        try (ReloadableDictionary dictionary = new ReloadableDictionary(path, DictionaryReader::load)) {
+            final NumberToWordConverter converter = new NumberToWordConverter(dictionary, new ResultCache(100));
+            assertThat(converter.convert("225563").collect(Collectors.toList())).containsExactly("CALL-ME");
+
+            // Replaced the way editors and deployment tools do, by moving a new file over the old one
+            final Path replacement = write("dictionary.tmp", "ball", "me");
+            Files.move(replacement, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            awaitGeneration(dictionary, 1);
+
+            assertThat(converter.convert("225563").collect(Collectors.toList())).containsExactly("BALL-ME");
+        }
+    }
+
+    @Test
+    public void testConversionInProgressKeepsItsDictionary() throws IOException {
+        final Path path = write("dictionary.txt", "call", "me");
+        try (ReloadableDictionary dictionary = new ReloadableDictionary(path, DictionaryReader::load)) {
+            final NumberToWordConverter converter = new NumberToWordConverter(dictionary, null);
+            final Iterator<String> words = converter.iterator("225563225563");
+
+            write("dictionary.txt", "ball", "me");
+            assertThat(dictionary.reload()).isTrue();
+
+            assertThat(words.next()).isEqualTo("CALL-ME-CALL-ME");
+            assertThat(converter.iterator("225563").next()).isEqualTo("BALL-ME");
+        }
+    }
+
+    @Test
+    public void testKeepsDictionaryWhenReloadFails() throws IOException {
+        final Path path = write("dictionary.txt", "call", "me");
+        try (ReloadableDictionary dictionary = new ReloadableDictionary(path, DictionaryReader::load)) {
+            final Dictionary loaded = dictionary.get();
+
+            write("dictionary.txt", "1234", "#");
+            assertThat(dictionary.reload()).isFalse();
+            Files.delete(path);
+            assertThat(dictionary.reload()).isFalse();
+
+            assertThat(dictionary.get()).isSameAs(loaded);
+            assertThat(dictionary.getGeneration()).isZero();
+        }
+    }
+
+    private Path write(String name, String... words) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name),
+                String.join("\n", Arrays.asList(words)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitGeneration(ReloadableDictionary dictionary, long generation)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (dictionary.getGeneration() < generation && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(dictionary.getGeneration()).isGreaterThanOrEqualTo(generation);
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ResultCache;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.TrieDictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Test caching the words of converted numbers.
+ */
+public class ResultCacheTest {
+
+    private static Dictionary dictionary;
+    private static NumberToWordConverter uncached;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        uncached = new NumberToWordConverter(dictionary);
+    }
+
+    @Test
+    public void testRepeatedNumbersAreAnsweredFromCache() {
+        final ResultCache cache = new ResultCache(1000);
+        final NumberToWordConverter cached = new NumberToWordConverter(dictionary, cache);
+
+        for (final String number : Arrays.asList("2255.63", "(225) 563", "22556322", "225563")) {
+            assertThat(cached.convert(number).collect(Collectors.toList()))
+                    .isEqualTo(uncached.convert(number).collect(Collectors.toList()));
+        }
+        assertThat(cached.convertInParallel("22556322", ForkJoinPool.commonPool()))
+                .isEqualTo(uncached.convert("22556322").collect(Collectors.toList()));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+        assertThat(cache.stats().hitCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLargeResultsAreNotCached() {
+        // 22556322 has 8 words, more than a sixteenth of the cache
+        final ResultCache cache = new ResultCache(100);
+        final NumberToWordConverter cached = new NumberToWordConverter(dictionary, cache);
+
+        assertThat(cached.convert("22556322").count()).isEqualTo(8);
+        assertThat(cached.convert("225563").count()).isEqualTo(1);
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsByWeight() {
+        final ResultCache cache = new ResultCache(16);
+        final NumberToWordConverter cached = new NumberToWordConverter(dictionary, cache);
+
+        for (int i = 0; i < 100; i++) {
+            cached.convert("748" + i).count();
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+        assertThat(cache.stats().evictionCount()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testNewDictionaryInvalidatesCache() {
+        final ResultCache cache = new ResultCache(1000);
+        assertThat(new NumberToWordConverter(dictionary, cache).convert("225563").count()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+
+        final Dictionary other = DictionaryReader.load(Arrays.asList("BALL", "ME").stream());
+        assertThat(new NumberToWordConverter(other, cache).convert("225563").collect(Collectors.toList()))
+                .isEqualTo(Arrays.asList("BALL-ME"));
+        assertThat(new NumberToWordConverter(PackedDictionary.from(other), cache).convert("225563").count())
+                .isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isZero();
+        assertThat(cache.stats().missCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUpdateInPlaceInvalidatesCache() {
+        final ResultCache cache = new ResultCache(1000);
+        final TrieDictionary updated = DictionaryReader.load(Arrays.asList("CALL", "BALL", "ME").stream());
+        final NumberToWordConverter cached = new NumberToWordConverter(updated, cache);
+        assertThat(cached.convert("225563").collect(Collectors.toList())).containsExactly("CALL-ME", "BALL-ME");
+
+        updated.removeWord("2255", "CALL");
+        assertThat(cached.convert("225563").collect(Collectors.toList())).containsExactly("BALL-ME");
+        assertThat(cache.stats().hitCount()).isZero();
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+        assertThat(cached.convert("225563").collect(Collectors.toList())).containsExactly("BALL-ME");
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final ResultCache cache = new ResultCache(64);
+        final NumberToWordConverter cached = new NumberToWordConverter(dictionary, cache);
+        final List<String> numbers = Arrays.asList("225563", "22556322", "4225563", "748", "7482255637", "0");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                final String number = numbers.get(i % numbers.size());
+                results.add(executor.submit(() -> cached.convert(number).collect(Collectors.toList())
+                        .equals(uncached.convert(number).collect(Collectors.toList()))));
+            }
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
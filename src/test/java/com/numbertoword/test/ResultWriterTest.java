@@ -0,0 +1,125 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.SearchBudget;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.output.OutputFormat;
+import com.phonetoword.output.ResultWriter;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test writing the words of numbers in each output format.
+ */
+public class ResultWriterTest {
+
+    private static final List<String> NUMBERS = Arrays.asList("225563", "0", "2255-63");
+
+    private static NumberToWordConverter converter;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void init() throws IOException {
+        converter = new NumberToWordConverter(
+                DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt")));
+    }
+
+    @Test
+    public void testPlain() throws IOException {
+        assertThat(write(OutputFormat.PLAIN)).isEqualTo("225563:\nCALL-ME\n\n0:\n0\n0\n\n225563:\nCALL-ME\n\n");
+    }
+
+    @Test
+    public void testTsv() throws IOException {
+        assertThat(write(OutputFormat.TSV)).isEqualTo("225563\tCALL-ME\n0\t0\n0\t0\n225563\tCALL-ME\n");
+    }
+
+    @Test
+    public void testJsonLines() throws IOException {
+        assertThat(write(OutputFormat.JSON)).isEqualTo(
+                "{\"number\":\"225563\",\"words\":[\"CALL-ME\"],\"truncated\":false}\n"
+                + "{\"number\":\"0\",\"words\":[\"0\",\"0\"],\"truncated\":false}\n"
+                + "{\"number\":\"225563\",\"words\":[\"CALL-ME\"],\"truncated\":false}\n");
+    }
+
+    @Test
+    public void testJsonEscapesLettersOfLayout() throws IOException {
+        final Path layout = folder.getRoot().toPath().resolve("quotes.txt");
+        Files.write(layout, "2 ABC\"\n3 DEF\\\n".getBytes(StandardCharsets.UTF_8));
+        final Keypad keypad = Keypad.load(layout);
+        final NumberToWordConverter quoting = new NumberToWordConverter(
+                DictionaryReader.load(Arrays.asList("a\"b", "d\\").stream(), keypad));
+
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = new ResultWriter(out, OutputFormat.JSON)) {
+            quoting.process(Arrays.asList("22233").stream(), writer);
+        }
+        assertThat(out.toString())
+                .isEqualTo("{\"number\":\"22233\",\"words\":[\"A\\\"B-D\\\\\"],\"truncated\":false}\n");
+    }
+
+    @Test
+    public void testMarksTruncatedNumbers() throws IOException {
+        final SearchBudget budget = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, 2, Integer.MAX_VALUE);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(bytes, OutputFormat.JSON)) {
+            converter.process(Arrays.asList("22556322").stream(), budget, writer);
+        }
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"number\":\"22556322\",\"words\":[\"CALL-ME-A-A\",\"CALL-ME-A-B\"],"
+                        + "\"truncated\":true}\n");
+
+        final StringWriter plain = new StringWriter();
+        try (ResultWriter writer = new ResultWriter(plain, OutputFormat.PLAIN)) {
+            converter.process(Arrays.asList("22556322").stream(), budget, writer);
+        }
+        assertThat(plain.toString()).isEqualTo("22556322:\nCALL-ME-A-A\nCALL-ME-A-B\n(truncated)\n\n");
+    }
+
+    @Test
+    public void testBuffersUntilFlushed() throws IOException {
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = new ResultWriter(out, OutputFormat.TSV)) {
+            converter.process(NUMBERS.stream(), writer);
+            assertThat(out.toString()).isEmpty();
+            writer.flush();
+            assertThat(out.toString()).startsWith("225563\tCALL-ME\n");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownFormat() {
+        OutputFormat.parse("xml");
+    }
+
+    @Test
+    public void testParsesFormatInAnyCase() {
+        assertThat(OutputFormat.parse("Json")).isEqualTo(OutputFormat.JSON);
+    }
+
+    private static String write(OutputFormat format) throws IOException {
+        final StringWriter out = new StringWriter();
+        try (ResultWriter writer = new ResultWriter(out, format)) {
+            converter.process(NUMBERS.stream(), writer);
+        }
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.PhraseCheck;
+import com.phonetoword.convertor.ReverseConverter;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.Keypad;
+import com.phonetoword.dictionary.PackedDictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test turning vanity phrases back into numbers and checking them against the dictionary.
+ */
+public class ReverseConverterTest {
+
+    private static Dictionary dictionary;
+    private static ReverseConverter reverseConverter;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        reverseConverter = new ReverseConverter(dictionary);
+    }
+
+    @Test
+    public void testKeypadMapsEveryLetter() {
+        assertThat(Keypad.STANDARD.toNumber("abcdefghijklmnopqrstuvwxyz"))
+                .isEqualTo("22233344455566677778889999");
+        assertThat(Keypad.STANDARD.toNumber("ABCDEFGHIJKLMNOPQRSTUVWXYZ"))
+                .isEqualTo("22233344455566677778889999");
+        assertThat(Keypad.STANDARD.toNumber("m.e 1")).isEqualTo("63");
+        assertThat(Keypad.STANDARD.digit('É')).isEqualTo(Keypad.NO_DIGIT);
+    }
+
+    @Test
+    public void testChecksPhrase() {
+        final PhraseCheck check = reverseConverter.check("1-800-Call-Me");
+
+        assertThat(check.getNumber()).isEqualTo("1800225563");
+        assertThat(check.getWordCount()).isEqualTo(2);
+        assertThat(check.getUnknownWords()).isEmpty();
+        assertThat(check.isValid()).isTrue();
+    }
+
+    @Test
+    public void testReportsUnknownWords() {
+        final PhraseCheck check = reverseConverter.check("call you, sleepy 9 me");
+
+        assertThat(check.getNumber()).isEqualTo("2255968753379963");
+        assertThat(check.getUnknownWords()).containsExactly("YOU", "SLEEPY");
+        assertThat(check.isValid()).isFalse();
+        // Same number as a word, but not the same letters
+        assertThat(reverseConverter.check("CALK").getUnknownWords()).containsExactly("CALK");
+        assertThat(reverseConverter.check("1-800").isValid()).isFalse();
+    }
+
+    @Test
+    public void testMatchesConvertedWords() {
+        final NumberToWordConverter converter = new NumberToWordConverter(dictionary);
+        final ReverseConverter packed = new ReverseConverter(PackedDictionary.from(dictionary));
+        for (final String word : converter.process(Collections.singletonList("22556322").stream())
+                .get("22556322")) {
+            assertThat(reverseConverter.check(word).getNumber()).as(word).isEqualTo("22556322");
+            assertThat(reverseConverter.check(word).isValid()).as(word).isTrue();
+            assertThat(packed.check(word).isValid()).as(word).isTrue();
+        }
+    }
+
+    @Test
+    public void testChecksStreamInOrder() {
+        final List<String> phrases = Arrays.asList("call me", "", "  sleep  ", "nothing");
+        final List<String> expected = Arrays.asList("225563=true", "75337=true", "6684464=false");
+
+        assertThat(reverseConverter.check(phrases.stream()).map(check -> check.getNumber() + "=" + check.isValid())
+                .collect(Collectors.toList())).isEqualTo(expected);
+        assertThat(reverseConverter.check(Collections.nCopies(1000, phrases).stream().flatMap(List::stream)
+                .parallel()).map(check -> check.getNumber() + "=" + check.isValid()).collect(Collectors.toList()))
+                        .isEqualTo(Collections.nCopies(1000, expected).stream().flatMap(List::stream)
+                                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testNumberKeepsDigits() {
+        assertThat(reverseConverter.toNumber("1-800-FLOWERS")).isEqualTo("18003569377");
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.ReverseConverter;
+import com.phonetoword.convertor.SuggestionSession;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test suggesting words for a number while it is typed.
+ */
+public class SuggestionSessionTest {
+
+    private static Dictionary dictionary;
+    private static Dictionary defaultDictionary;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+        defaultDictionary = DictionaryReader
+                .load(SuggestionSessionTest.class.getClassLoader().getResourceAsStream("data/default_dictionary.txt"));
+    }
+
+    @Test
+    public void testSuggestsCompletionsAsDigitsAreTyped() {
+        final SuggestionSession session = new NumberToWordConverter(dictionary).newSession();
+
+        assertThat(session.suggest(10)).isEmpty();
+        session.append('2');
+        assertThat(session.suggest(10)).containsExactly("A", "B", "CALL", "COMPUTE");
+        assertThat(session.suggest(2)).containsExactly("A", "B");
+        session.append('2');
+        assertThat(session.suggest(10)).containsExactly("CALL", "A-A", "A-B", "A-CALL", "A-COMPUTE");
+        session.append("5-5");
+        assertThat(session.suggest(10)).containsExactly("CALL");
+        session.append('6');
+        assertThat(session.getDigits()).isEqualTo("22556");
+        assertThat(session.suggest(10)).containsExactly("CALL-ME");
+    }
+
+    @Test
+    public void testKeepsDigitsThatSpellNoWord() {
+        final SuggestionSession session = new SuggestionSession(dictionary);
+        session.append("1225");
+        assertThat(session.suggest(10)).containsExactly("1-CALL");
+
+        session.clear();
+        session.append("102");
+        assertThat(session.suggest(10)).containsExactly("10-A", "10-B", "10-CALL", "10-COMPUTE");
+        session.append('0');
+        assertThat(session.suggest(10)).isEmpty();
+    }
+
+    @Test
+    public void testBackspaceRestoresSuggestions() {
+        final SuggestionSession session = new SuggestionSession(dictionary);
+        session.append("2255");
+        final List<String> before = session.suggest(10);
+        session.append("637");
+
+        assertThat(session.backspace()).isTrue();
+        assertThat(session.backspace()).isTrue();
+        assertThat(session.backspace()).isTrue();
+        assertThat(session.suggest(10)).isEqualTo(before);
+        session.append('6');
+        assertThat(session.suggest(10)).containsExactly("CALL-ME");
+        session.clear();
+        assertThat(session.backspace()).isFalse();
+        assertThat(session.getDigits()).isEmpty();
+    }
+
+    @Test
+    public void testIncrementalMatchesFreshSession() {
+        final Random random = new Random(42);
+        final SuggestionSession session = new SuggestionSession(defaultDictionary);
+        final ReverseConverter reverseConverter = new ReverseConverter(defaultDictionary);
+        for (int keystroke = 0; keystroke < 2000; keystroke++) {
+            if (session.getDigits().length() > 12 || random.nextInt(4) == 0) {
+                session.backspace();
+            } else {
+                session.append((char) ('0' + random.nextInt(10)));
+            }
+            final SuggestionSession fresh = new SuggestionSession(defaultDictionary);
+            fresh.append(session.getDigits());
+            final List<String> suggestions = session.suggest(20);
+
+            assertThat(suggestions).as(session.getDigits()).isEqualTo(fresh.suggest(20));
+            for (final String suggestion : suggestions) {
+                assertThat(reverseConverter.toNumber(suggestion)).as(suggestion).startsWith(session.getDigits());
+            }
+        }
+    }
+
+    @Test
+    public void testSuggestionsAgreeWithConverter() {
+        final Random random = new Random(7);
+        final NumberToWordConverter converter = new NumberToWordConverter(defaultDictionary);
+        final ReverseConverter reverseConverter = new ReverseConverter(defaultDictionary);
+        for (int number = 0; number < 200; number++) {
+            final SuggestionSession session = converter.newSession();
+            for (int digit = 1 + random.nextInt(9); digit > 0; digit--) {
+                session.append((char) ('0' + random.nextInt(10)));
+            }
+            final String digits = session.getDigits();
+            final List<String> converted = converter.process(Collections.singletonList(digits).stream()).get(digits);
+            for (final String suggestion : session.suggest(20)) {
+                // Spelling the digits exactly makes it one of the converter's words
+                if (reverseConverter.toNumber(suggestion).equals(digits)) {
+                    assertThat(converted).as(digits).contains(suggestion);
+                }
+                // What comes before the last word is spelled as well as the converter can
+                final int lastWord = suggestion.lastIndexOf('-');
+                if (lastWord > 0) {
+                    final String before = suggestion.substring(0, lastWord);
+                    assertThat(rank(before)).as(suggestion)
+                            .isEqualTo(rank(converter.topK(reverseConverter.toNumber(before), 1).get(0)));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsLetters() {
+        new SuggestionSession(dictionary).append('a');
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoSuggestions() {
+        new SuggestionSession(dictionary).suggest(0);
+    }
+
+    /**
+     * @return digits left as they are and number of words of a spelling, the order of which ranks spellings
+     */
+    private static List<Long> rank(String spelled) {
+        long digits = 0;
+        long words = 0;
+        for (final String token : spelled.split("-")) {
+            if (Character.isDigit(token.charAt(0))) {
+                digits += token.length();
+            } else {
+                words++;
+            }
+        }
+        return Arrays.asList(digits, words);
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.numbertoword.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.phonetoword.convertor.NumberToWordConverter;
+import com.phonetoword.convertor.SearchBudget;
+import com.phonetoword.dictionary.Dictionary;
+import com.phonetoword.dictionary.reader.DictionaryReader;
+import com.phonetoword.index.VanityIndex;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test building and looking numbers up in a precomputed index of fixed length blocks.
+ */
+public class VanityIndexTest {
+
+    private static final int BLOCK_LENGTH = 4;
+
+    private static Dictionary dictionary;
+    private static Dictionary testDictionary;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void init() throws IOException {
+        dictionary = DictionaryReader
+                .load(VanityIndexTest.class.getClassLoader().getResourceAsStream("data/default_dictionary.txt"));
+        testDictionary = DictionaryReader.load(Paths.get("src/test/resources/test-dictionary.txt"));
+    }
+
+    @Test
+    public void testMatchesWordsOnlySegmentations() {
+        final VanityIndex index = build(dictionary, BLOCK_LENGTH, 4);
+        final NumberToWordConverter converter = new NumberToWordConverter(dictionary);
+        int blocks = 0;
+        for (int i = 0; i < 1 << 3 * BLOCK_LENGTH; i++) {
+            // Every block of the digits 2 to 9, which are the only ones with letters
+            final StringBuilder number = new StringBuilder();
+            for (int digit = 0; digit < BLOCK_LENGTH; digit++) {
+                number.append((char) ('2' + (i >> 3 * digit & 7)));
+            }
+            final List<String> expected;
+            try (Stream<String> words = converter.convert(number.toString())) {
+                expected = words.filter(word -> word.chars().noneMatch(Character::isDigit))
+                        .collect(Collectors.toList());
+            }
+            assertThat(index.lookup(number.toString())).as(number.toString()).isEqualTo(expected);
+            blocks += expected.isEmpty() ? 0 : 1;
+        }
+        assertThat(index.getBlockCount()).isEqualTo(blocks);
+    }
+
+    @Test
+    public void testParallelBuildWritesSameFile() throws IOException {
+        final Path sequential = folder.getRoot().toPath().resolve("sequential.idx");
+        final Path parallel = folder.getRoot().toPath().resolve("parallel.idx");
+        build(dictionary, 5, 1).write(sequential);
+        build(dictionary, 5, 4).write(parallel);
+
+        assertThat(Files.readAllBytes(parallel)).isEqualTo(Files.readAllBytes(sequential));
+    }
+
+    @Test
+    public void testLooksOnlySingleBlocksUp() throws IOException {
+        final Path path = folder.getRoot().toPath().resolve("test.idx");
+        build(testDictionary, 6, 2).write(path);
+        // Written again over the previous file
+        build(testDictionary, 6, 2).write(path);
+        final VanityIndex index = VanityIndex.load(path);
+
+        assertThat(index.getBlockLength()).isEqualTo(6);
+        assertThat(index.lookup("225563")).containsExactly("CALL-ME");
+        assertThat(index.lookup("225564")).isEmpty();
+        assertThat(index.lookup("22556")).isNull();
+        assertThat(index.lookup("1800225563")).isNull();
+        assertThat(folder.getRoot().list()).containsExactly("test.idx");
+    }
+
+    @Test
+    public void testConverterLooksIndexedNumbersUp() {
+        // The index of another dictionary shows which numbers are looked up
+        final VanityIndex index = build(DictionaryReader.load(Arrays.asList("BALL", "ME").stream()), 6, 2);
+        final NumberToWordConverter converter =
+                new NumberToWordConverter(() -> testDictionary, null, null, index);
+
+        try (Stream<String> words = converter.convert("225-563")) {
+            assertThat(words.collect(Collectors.toList())).containsExactly("BALL-ME");
+        }
+        assertThat(converter.convert("225563", new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, 1,
+                Integer.MAX_VALUE)).getWords()).containsExactly("BALL-ME");
+        // Shorter and longer numbers are searched as usual
+        assertThat(converter.process(Collections.singletonList("2255").stream()).get("2255"))
+                .containsExactly("CALL");
+        assertThat(converter.process(Collections.singletonList("1225563").stream()).get("1225563"))
+                .contains("1-CALL-ME");
+    }
+
+    @Test
+    public void testLongerNumbersMatchSearch() {
+        final NumberToWordConverter indexed =
+                new NumberToWordConverter(() -> dictionary, null, null, build(dictionary, BLOCK_LENGTH, 4));
+        final NumberToWordConverter searched = new NumberToWordConverter(dictionary);
+        final SearchBudget budget = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, 50, Integer.MAX_VALUE);
+        final Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            final StringBuilder number = new StringBuilder();
+            for (int digit = BLOCK_LENGTH + 1 + random.nextInt(5); digit > 0; digit--) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            try (Stream<String> expected = searched.convert(number.toString());
+                    Stream<String> actual = indexed.convert(number.toString())) {
+                assertThat(actual.collect(Collectors.toList())).as(number.toString())
+                        .isEqualTo(expected.collect(Collectors.toList()));
+            }
+            assertThat(indexed.convert(number.toString(), budget).getWords()).as(number.toString())
+                    .isEqualTo(searched.convert(number.toString(), budget).getWords());
+        }
+    }
+
+    @Test
+    public void testIndexedNumbersMatchSearch() {
+        final NumberToWordConverter indexed =
+                new NumberToWordConverter(() -> dictionary, null, null, build(dictionary, BLOCK_LENGTH, 4));
+        final NumberToWordConverter searched = new NumberToWordConverter(dictionary);
+        final Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            final StringBuilder number = new StringBuilder();
+            for (int digit = 0; digit < BLOCK_LENGTH; digit++) {
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            try (Stream<String> expected = searched.convert(number.toString());
+                    Stream<String> actual = indexed.convert(number.toString())) {
+                assertThat(actual.collect(Collectors.toList())).as(number.toString())
+                        .isEqualTo(expected.collect(Collectors.toList()));
+            }
+        }
+
+        // Digits left as they are, zero and one above all, are not in the index but are still found
+        final NumberToWordConverter callMe =
+                new NumberToWordConverter(() -> testDictionary, null, null, build(testDictionary, 7, 2));
+        for (final String number : Arrays.asList("2255063", "2255163", "2255263")) {
+            assertThat(callMe.process(Collections.singletonList(number).stream()).get(number)).as(number)
+                    .isEqualTo(new NumberToWordConverter(testDictionary)
+                            .process(Collections.singletonList(number).stream()).get(number))
+                    .isNotEmpty();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsLongBlocks() {
+        build(testDictionary, VanityIndex.MAX_BLOCK_LENGTH + 1, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        VanityIndex.load(Paths.get("src/test/resources/test-dictionary.txt"));
+    }
+
+    private static VanityIndex build(Dictionary source, int blockLength, int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return VanityIndex.build(source, blockLength, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}